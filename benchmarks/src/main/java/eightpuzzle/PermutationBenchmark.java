@@ -0,0 +1,64 @@
+package eightpuzzle;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The operations of <b>RandomPermutation</b> used by the game and by the
+ * first solvers, on a fixed board of each size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PermutationBenchmark {
+
+    /** The number of rows and of columns of the board. */
+    @Param({"3", "4"})
+    public int side;
+
+    /** The board, the same in every run. */
+    private RandomPermutation board;
+
+    /** Draws the board. */
+    @Setup
+    public void setup() {
+        board = new BoardGenerator(side, side, 42).next();
+    }
+
+    @Benchmark
+    public void neighbours(Blackhole blackhole) {
+        for (RandomPermutation neighbour : board.neighbours()) {
+            blackhole.consume(neighbour);
+        }
+    }
+
+    @Benchmark
+    public RandomPermutation copy() {
+        return board.clone();
+    }
+
+    @Benchmark
+    public int manhattan() {
+        return board.manhattan();
+    }
+
+    @Benchmark
+    public int hamming() {
+        return board.hamming();
+    }
+}
@@ -0,0 +1,76 @@
+package eightpuzzle;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full solves of 3x3 boards, on fixed corpora of boards at the same optimal
+ * distance, so that numbers are comparable from one commit to the next. Each
+ * operation solves the next board of the corpus. Run with <b>-prof gc</b>,
+ * the <b>gc.alloc.rate.norm</b> result is the memory allocated per solve.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class SolverBenchmark {
+
+    /** The number of boards of a corpus. */
+    private static final int CORPUS = 64;
+
+    /** The seed of the corpora, never to be changed. */
+    private static final long SEED = 20240101L;
+
+    /** The optimal number of moves of every board of the corpus. */
+    @Param({"10", "20", "25", "31"})
+    public int depth;
+
+    /** The solver. */
+    @Param({"astar", "astar-buckets", "ida", "bidirectional"})
+    public String solver;
+
+    /** The boards. */
+    private RandomPermutation[] boards;
+
+    /** The heuristic of the solves. */
+    private Heuristic heuristic;
+
+    /** The index of the next board to solve. */
+    private int next;
+
+    /** Draws the corpus. */
+    @Setup
+    public void setup() {
+        boards = new BoardGenerator(3, 3, SEED).boards(CORPUS, depth).toArray(RandomPermutation[]::new);
+        heuristic = new ManhattanHeuristic(3, 3);
+    }
+
+    @Benchmark
+    public int solve() {
+        RandomPermutation board = boards[next];
+        next = (next + 1) % boards.length;
+        switch (solver) {
+        case "astar-buckets":
+            return new Solver(board, heuristic, new SearchContext(BucketQueue::new)).moves();
+        case "ida":
+            return new IDASolver(board, heuristic).moves();
+        case "bidirectional":
+            return new BidirectionalSolver(board).moves();
+        default:
+            return new Solver(board, heuristic).moves();
+        }
+    }
+}
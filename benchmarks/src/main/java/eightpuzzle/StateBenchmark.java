@@ -0,0 +1,128 @@
+package eightpuzzle;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The operations on packed positions done for every generated state of a
+ * search: moving, evaluating the heuristics, and looking up the table of
+ * reached positions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class StateBenchmark {
+
+    /** The number of positions in the table. */
+    private static final int POSITIONS = 1 << 16;
+
+    /** The heuristic evaluated. */
+    @Param({"MANHATTAN", "LINEAR_CONFLICT", "WALKING_DISTANCE"})
+    public HeuristicType heuristicType;
+
+    /** The encoding of 4x4 boards. */
+    private PackedBoard packed;
+
+    /** Random positions, all in the table. */
+    private long[] positions;
+
+    /** The table of reached positions. */
+    private StateTable table;
+
+    /** The heuristic. */
+    private Heuristic heuristic;
+
+    /** The tiles of the first position. */
+    private int[] tiles;
+
+    /** The estimate of the first position. */
+    private int estimate;
+
+    /** The heuristic state of the first position. */
+    private int state;
+
+    /** The index of the empty cell of the first position. */
+    private int zero;
+
+    /** The index of a cell next to the empty cell. */
+    private int target;
+
+    /** The index of the next position to use. */
+    private int next;
+
+    /** Draws the positions and fills the table. */
+    @Setup
+    public void setup() {
+        packed = new PackedBoard(4, 4);
+        positions = new BoardGenerator(4, 4, 7).packedBoards(POSITIONS).toArray();
+        table = new StateTable();
+        for (int i = 0; i < positions.length; i++) {
+            table.put(positions[i], i);
+        }
+        heuristic = heuristicType.create(4, 4);
+        tiles = new int[packed.size()];
+        packed.unpack(positions[0], tiles);
+        estimate = heuristic.estimate(tiles);
+        state = heuristic.state(tiles);
+        zero = packed.zeroIndex(positions[0]);
+        target = packed.target(zero, zero >= 4 ? Direction.UP : Direction.DOWN);
+    }
+
+    @Benchmark
+    public long slide() {
+        long position = positions[next];
+        next = (next + 1) & (POSITIONS - 1);
+        int empty = packed.zeroIndex(position);
+        int cell = packed.target(empty, Direction.UP);
+        return cell < 0 ? position : PackedBoard.slide(position, empty, cell);
+    }
+
+    @Benchmark
+    public int lookup() {
+        long position = positions[next];
+        next = (next + 1) & (POSITIONS - 1);
+        return table.get(position);
+    }
+
+    @Benchmark
+    public int estimate() {
+        return heuristic.estimate(tiles);
+    }
+
+    @Benchmark
+    public int update() {
+        // the move and its undo, as the solvers evaluate a neighbour and keep its state
+        tiles[zero] = tiles[target];
+        tiles[target] = 0;
+        int result = heuristic.update(estimate, state, tiles, target, zero)
+                + heuristic.advance(state, tiles, target, zero);
+        tiles[target] = tiles[zero];
+        tiles[zero] = 0;
+        return result;
+    }
+
+    @Benchmark
+    public int updateStateless() {
+        // the baseline without the state of the position, which the solvers no longer use
+        tiles[zero] = tiles[target];
+        tiles[target] = 0;
+        int result = heuristic.update(estimate, tiles, target, zero);
+        tiles[target] = tiles[zero];
+        tiles[zero] = 0;
+        return result;
+    }
+}
@@ -0,0 +1,279 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves a board with Anytime Repairing A* (ARA*): a first solution is found
+ * quickly by a Weighted A* search, whose estimates are multiplied by a large
+ * weight, then the weight is lowered step by step and the search resumes
+ * where it stopped, each time improving the solution, until the solution is
+ * proved optimal or the deadline of the <b>SearchContext</b> has passed.
+ * Every improved solution is handed to a <b>Listener</b> as soon as it is
+ * found, along with a bound on how far it is from the optimal one.
+ *
+ * The states are kept in the same <b>NodePool</b>, <b>StateMap</b> and
+ * <b>OpenList</b> as <b>Solver</b>. Within a step, a state is expanded at
+ * most once; a state reached again with fewer moves once expanded is set
+ * aside, and put back in the open list for the next step, with the states
+ * left in it, ordered by the new weight.
+ */
+public class AnytimeSolver implements PuzzleSolver {
+
+    /** Receives the solutions of an anytime search as they improve. */
+    public interface Listener {
+
+        /**
+         * Called, on the thread of the search, for every solution shorter
+         * than the previous one.
+         * @param path the moves of the solution
+         * @param bound the solution has at most this factor times the minimum number of moves, 1 if optimal
+         */
+        void improved(MoveSequence path, double bound);
+    }
+
+    /** The weight of the first step by default. */
+    public static final double DEFAULT_WEIGHT = 3;
+
+    /** The amount the weight is lowered by after each step by default. */
+    public static final double DEFAULT_DECREMENT = 0.5;
+
+    /** The number of expansions between two checks of whether the search should stop. */
+    private static final int CHECK_INTERVAL = 1 << 10;
+
+    /** The encoding used for the positions explored by the search. */
+    private final PackedBoard packed;
+
+    /** The moves of the best solution found. */
+    private MoveSequence path;
+
+    /** The best solution has at most this factor times the minimum number of moves. */
+    private double bound;
+
+    /** The number of positions expanded by the search. */
+    private long expansions;
+
+    /**
+     * Constructor that searches for an optimal solution for at most the
+     * given time, starting with the default weight.
+     * @param board the position that the board is currently in.
+     * @param heuristic an admissible heuristic for boards of this size
+     * @param timeout the time allowed to the search, 0 for no limit
+     * @param unit the unit of the timeout
+     * @param listener receives the solutions as they improve, or null
+     * @throws IllegalArgumentException if the board cannot be solved
+     * @throws CancellationException if the deadline passed before any solution was found
+     */
+    public AnytimeSolver(RandomPermutation board, Heuristic heuristic, long timeout, TimeUnit unit,
+            Listener listener) {
+        this(board, heuristic, begin(new SearchContext(), unit.toNanos(timeout)), DEFAULT_WEIGHT,
+                DEFAULT_DECREMENT, listener);
+    }
+
+    /**
+     * Constructor that searches until the solution is proved optimal, or
+     * until the deadline of the context has passed, in which case the best
+     * solution found so far is kept.
+     * @param board the position that the board is currently in.
+     * @param heuristic an admissible heuristic for boards of this size
+     * @param context the buffers and stop conditions of the search, prepared by {@link SearchContext#begin}
+     * @param weight the weight of the first step, at least 1
+     * @param decrement the amount the weight is lowered by after each step, above 0
+     * @param listener receives the solutions as they improve, or null
+     * @throws IllegalArgumentException if the board cannot be solved, or the weights are invalid
+     * @throws CancellationException if the search was cancelled, or timed out before any solution was found
+     * @throws IllegalStateException if the table of reached positions of the context is full
+     */
+    public AnytimeSolver(RandomPermutation board, Heuristic heuristic, SearchContext context, double weight,
+            double decrement, Listener listener) {
+        if (!(weight >= 1) || !(decrement > 0)) {
+            throw new IllegalArgumentException("The weight must be at least 1 and the decrement above 0");
+        }
+        Solvability.require(board);
+        packed = new PackedBoard(board.getRows(), board.getColumns());
+        long goal = packed.goal();
+        long position = packed.encode(board);
+
+        StateMap reached = context.reached();
+        NodePool nodes = context.nodes();
+        OpenList open = context.open();
+        int[] tiles = context.tiles(packed.size());
+        packed.unpack(position, tiles);
+        int root = nodes.add(position, packed.zeroIndex(position), 0, heuristic.estimate(tiles),
+                heuristic.state(tiles), -1);
+        reached.put(position, root);
+        open.push(root, weigh(weight, nodes.estimate(root)), 0);
+
+        // the states expanded during the current step, and those set aside for the next one
+        BitSet closed = new BitSet();
+        BitSet inconsistent = new BitSet();
+        int[] aside = new int[64];
+        int asideSize = 0;
+        int goalNode = position == goal ? root : -1;
+        int goalMoves = goalNode >= 0 ? 0 : Integer.MAX_VALUE;
+        int published = Integer.MAX_VALUE;
+        bound = Double.POSITIVE_INFINITY;
+
+        try {
+            while (true) {
+                // expand while a state may lead to a shorter solution than the one found at this weight
+                while (!open.isEmpty()) {
+                    int node = open.pop();
+                    int moves = nodes.moves(node);
+                    if (goalMoves != Integer.MAX_VALUE && moves + weigh(weight, nodes.estimate(node)) >= goalMoves) {
+                        open.push(node, moves + weigh(weight, nodes.estimate(node)), moves);
+                        break;
+                    }
+                    if (++expansions % CHECK_INTERVAL == 0) {
+                        context.checkpoint(expansions, open.size());
+                    }
+                    closed.set(node);
+                    position = nodes.position(node);
+                    int zero = nodes.zero(node);
+                    int estimate = nodes.estimate(node);
+                    int state = nodes.state(node);
+                    moves++;
+                    packed.unpack(position, tiles);
+                    for (int direction = 0; direction < Direction.COUNT; direction++) {
+                        int target = packed.target(zero, direction);
+                        if (target < 0) {
+                            continue;
+                        }
+                        long neighbour = PackedBoard.slide(position, zero, target);
+                        int child = reached.get(neighbour);
+                        if (child == StateMap.MISSING) {
+                            tiles[zero] = tiles[target];
+                            tiles[target] = 0;
+                            int childEstimate = heuristic.update(estimate, state, tiles, target, zero);
+                            int childState = heuristic.advance(state, tiles, target, zero);
+                            tiles[target] = tiles[zero];
+                            tiles[zero] = 0;
+                            child = nodes.add(neighbour, target, moves, childEstimate, childState, node);
+                            reached.put(neighbour, child);
+                            open.push(child, moves + weigh(weight, childEstimate), moves);
+                        } else if (moves < nodes.moves(child)) {
+                            nodes.relink(child, moves, node);
+                            int cost = moves + weigh(weight, nodes.estimate(child));
+                            if (closed.get(child)) {
+                                // expanded at this weight already, wait for the next step
+                                if (!inconsistent.get(child)) {
+                                    inconsistent.set(child);
+                                    if (asideSize == aside.length) {
+                                        aside = Arrays.copyOf(aside, asideSize * 2);
+                                    }
+                                    aside[asideSize++] = child;
+                                }
+                            } else if (open.contains(child)) {
+                                open.decrease(child, cost, moves);
+                            } else {
+                                open.push(child, cost, moves);
+                            }
+                        } else {
+                            continue;
+                        }
+                        if (neighbour == goal && moves < goalMoves) {
+                            goalNode = child;
+                            goalMoves = moves;
+                        }
+                    }
+                }
+
+                // the states left in the open list or set aside hold a lower bound on the minimum number of moves
+                int size = open.size();
+                int[] pending = Arrays.copyOf(aside, asideSize + size);
+                for (int i = 0; i < size; i++) {
+                    pending[asideSize + i] = open.pop();
+                }
+                int lowest = Integer.MAX_VALUE;
+                for (int node : pending) {
+                    lowest = Math.min(lowest, nodes.moves(node) + nodes.estimate(node));
+                }
+                if (goalNode >= 0) {
+                    double proved = lowest == Integer.MAX_VALUE || lowest >= goalMoves ? 1
+                            : (double) goalMoves / Math.max(lowest, 1);
+                    bound = Math.min(weight, proved);
+                    if (goalMoves < published) {
+                        published = goalMoves;
+                        // the parents may already lead to the goal in fewer moves than it was reached with
+                        MoveSequence improved = Solver.path(board, packed, nodes, goalNode);
+                        if (path == null || improved.length() < path.length()) {
+                            path = improved;
+                            if (listener != null) {
+                                listener.improved(path, bound);
+                            }
+                        }
+                    }
+                    if (bound <= 1) {
+                        bound = 1;
+                        break;
+                    }
+                } else if (pending.length == 0) {
+                    throw new IllegalArgumentException("The board cannot be solved");
+                }
+
+                // resume with a lower weight, every state being ordered again
+                weight = Math.max(1, weight - decrement);
+                closed.clear();
+                inconsistent.clear();
+                asideSize = 0;
+                for (int node : pending) {
+                    open.push(node, nodes.moves(node) + weigh(weight, nodes.estimate(node)), nodes.moves(node));
+                }
+            }
+        } catch (CancellationException e) {
+            if (path == null || !context.timedOut()) {
+                throw e;
+            }
+            // out of time, keep the best solution found
+        }
+    }
+
+    /**
+     * Prepares a new context.
+     * @param context the context
+     * @param timeout the time allowed to the search in nanoseconds, 0 for no limit
+     * @return Returns the context
+     */
+    private static SearchContext begin(SearchContext context, long timeout) {
+        context.begin(null, timeout);
+        return context;
+    }
+
+    /**
+     * Applies a weight to an estimate.
+     * @param weight the weight, at least 1
+     * @param estimate the estimate of a state
+     * @return Returns the estimate, times the weight rounded down
+     */
+    private static int weigh(double weight, int estimate) {
+        return (int) (weight * estimate);
+    }
+
+    /** @return The number of moves of the best solution found. */
+    @Override
+    public int moves() {
+        return path.length();
+    }
+
+    /** @return The moves of the best solution found. */
+    @Override
+    public MoveSequence path() {
+        return path;
+    }
+
+    /** @return The number of positions whose neighbours were generated during the search. */
+    @Override
+    public long expansions() {
+        return expansions;
+    }
+
+    /** @return Returns the factor the solution is at most from the minimum number of moves, 1 if optimal */
+    public double bound() {
+        return bound;
+    }
+
+    /** @return Returns true if the solution was proved optimal before the deadline */
+    public boolean isOptimal() {
+        return bound == 1;
+    }
+}
@@ -0,0 +1,258 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+/**
+ * Solves many boards at once, without the user interface, on a work-stealing
+ * <b>ForkJoinPool</b>. Each board is a job whose result is a
+ * <b>CompletableFuture</b>, completed as soon as the board is solved, so
+ * callers can react to results as they complete or wait for them in order.
+ *
+ * Each thread of the pool keeps a <b>SearchContext</b> whose buffers are
+ * reused from one solve to the next. Cancelling the future of a job stops
+ * its search, and a job given a timeout completes with a
+ * <b>TimeoutException</b> once its search has run for longer than that.
+ *
+ * Boards of up to 3x3 are solved with A*, larger ones with IDA*, as by
+ * {@link PuzzleSolver#solve(RandomPermutation)}. Corpora stored as a
+ * <b>PuzzleFile</b> are solved into another one by
+ * {@link #solveFile(Path, Path, long, TimeUnit)}. Usage of the throughput
+ * measurement: <code>java BatchSolver [rows columns [boards [threads]]]</code>
+ */
+public class BatchSolver implements AutoCloseable {
+
+    /** The number of boards of a file submitted ahead of the one being written, per thread. */
+    private static final int FILE_LOOKAHEAD = 64;
+
+    /** The threads solving the boards. */
+    private final ForkJoinPool pool;
+
+    /** The kind of heuristic used by the solves. */
+    private final HeuristicType type;
+
+    /** The heuristic of each board size, by rows times 65536 plus columns. */
+    private final Map<Integer, Heuristic> heuristics = new ConcurrentHashMap<>();
+
+    /** The jobs submitted whose solve has not started yet. */
+    private final Set<CompletableFuture<PuzzleSolver>> waiting = ConcurrentHashMap.newKeySet();
+
+    /** The jobs being solved, with the context of their search. */
+    private final Map<CompletableFuture<PuzzleSolver>, SearchContext> running = new ConcurrentHashMap<>();
+
+    /** Set once {@link #close()} is called. */
+    private volatile boolean closed;
+
+    /** The buffers of each thread of the pool. */
+    private final ThreadLocal<SearchContext> contexts = ThreadLocal.withInitial(SearchContext::new);
+
+    /** Constructs a batch solver using every processor and the Manhattan heuristic. */
+    public BatchSolver() {
+        this(Runtime.getRuntime().availableProcessors(), HeuristicType.MANHATTAN);
+    }
+
+    /**
+     * Constructs a batch solver.
+     * @param parallelism the number of threads solving boards
+     * @param type the heuristic of the solves
+     */
+    public BatchSolver(int parallelism, HeuristicType type) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.type = type;
+    }
+
+    /**
+     * Submits a board to solve, with no time limit.
+     * @param board the position to solve, not modified
+     * @return Returns the future solver, holding the solution
+     */
+    public CompletableFuture<PuzzleSolver> submit(RandomPermutation board) {
+        return submit(board, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Submits a board to solve. The future completes with a
+     * <b>TimeoutException</b> if the search takes longer than the timeout,
+     * counted from the start of the search. Cancelling the future stops the
+     * search. Once the batch solver is closed, the future is cancelled.
+     * @param board the position to solve, not modified
+     * @param timeout the time allowed to the search, 0 for no limit
+     * @param unit the unit of the timeout
+     * @return Returns the future solver, holding the solution
+     */
+    public CompletableFuture<PuzzleSolver> submit(RandomPermutation board, long timeout, TimeUnit unit) {
+        CompletableFuture<PuzzleSolver> job = new CompletableFuture<>();
+        long nanos = unit.toNanos(timeout);
+        waiting.add(job);
+        try {
+            pool.execute(() -> run(job, board, nanos));
+        } catch (RejectedExecutionException e) {
+            waiting.remove(job);
+            job.cancel(false);
+        }
+        return job;
+    }
+
+    /**
+     * Submits every board of a stream.
+     * @param boards the positions to solve, not modified
+     * @param timeout the time allowed to each search, 0 for no limit
+     * @param unit the unit of the timeout
+     * @return Returns the future solvers, in the order of the boards
+     */
+    public List<CompletableFuture<PuzzleSolver>> submitAll(Stream<RandomPermutation> boards, long timeout,
+            TimeUnit unit) {
+        List<CompletableFuture<PuzzleSolver>> jobs = new ArrayList<>();
+        boards.forEachOrdered(board -> jobs.add(submit(board, timeout, unit)));
+        return jobs;
+    }
+
+    /**
+     * Solves the boards of a puzzle file and writes them with their solutions
+     * to another one, in the same order. The boards are read as they are
+     * submitted, and only a bounded number of them are in flight at once, so
+     * files of any size stream through. Boards whose search times out or is
+     * cancelled are left out of the output; any other failure stops the
+     * whole file, as does a record the reader rejects.
+     * @param corpus the puzzle file holding the boards
+     * @param output the puzzle file receiving the boards and their solutions, replaced if it exists
+     * @param timeout the time allowed to each search, 0 for no limit
+     * @param unit the unit of the timeout
+     * @return Returns the number of boards solved
+     * @throws IOException if a file cannot be read or written, holds an invalid board, or a search fails
+     */
+    public long solveFile(Path corpus, Path output, long timeout, TimeUnit unit) throws IOException {
+        try (PuzzleFile.Reader reader = new PuzzleFile.Reader(corpus);
+             PuzzleFile.Writer writer = new PuzzleFile.Writer(output, reader.getRows(), reader.getColumns(), true)) {
+            int lookahead = pool.getParallelism() * FILE_LOOKAHEAD;
+            Deque<CompletableFuture<PuzzleSolver>> jobs = new ArrayDeque<>(lookahead);
+            boolean more = true;
+            long record = 0;
+            try {
+                while (more || !jobs.isEmpty()) {
+                    while (more && jobs.size() < lookahead && (more = reader.next())) {
+                        jobs.add(submit(reader.board(), timeout, unit));
+                    }
+                    CompletableFuture<PuzzleSolver> job = jobs.poll();
+                    if (job == null) {
+                        break;
+                    }
+                    try {
+                        writer.write(job.join().path());
+                    } catch (CancellationException e) {
+                        // left out, as documented
+                    } catch (CompletionException e) {
+                        if (!(e.getCause() instanceof TimeoutException)) {
+                            throw new IOException("Record " + record + " could not be solved", e.getCause());
+                        }
+                    }
+                    record++;
+                }
+            } finally {
+                // stop the searches still in flight when the file fails
+                jobs.forEach(job -> job.cancel(false));
+            }
+            return writer.count();
+        }
+    }
+
+    /**
+     * Solves a board on a thread of the pool and completes its job.
+     * @param job the future of the board
+     * @param board the position to solve
+     * @param timeout the time allowed to the search in nanoseconds, 0 for no limit
+     */
+    private void run(CompletableFuture<PuzzleSolver> job, RandomPermutation board, long timeout) {
+        if (!waiting.remove(job) || job.isDone()) {
+            // cancelled while waiting, by the caller or by close()
+            return;
+        }
+        SearchContext context = contexts.get();
+        context.begin(job, timeout);
+        running.put(job, context);
+        if (closed) {
+            // close() may have looked at the running jobs before this one was added
+            context.cancel();
+        }
+        try {
+            int rows = board.getRows();
+            int columns = board.getColumns();
+            Heuristic heuristic = heuristics.computeIfAbsent((rows << 16) + columns,
+                    size -> type.create(rows, columns));
+            job.complete(rows * columns <= 9
+                    ? new Solver(board, heuristic, context)
+                    : new IDASolver(board, heuristic, context));
+        } catch (CancellationException e) {
+            if (context.timedOut()) {
+                job.completeExceptionally(new TimeoutException("No solution found within the timeout"));
+            } else {
+                job.cancel(false);
+            }
+        } catch (Throwable e) {
+            job.completeExceptionally(e);
+        } finally {
+            running.remove(job);
+        }
+    }
+
+    /**
+     * Stops accepting boards, cancels the solves that have not started yet
+     * and stops the running ones, whose futures are cancelled too. No future
+     * of this batch solver is left pending once the running searches reach
+     * their next checkpoint.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        pool.shutdown();
+        for (CompletableFuture<PuzzleSolver> job : waiting) {
+            if (waiting.remove(job)) {
+                job.cancel(false);
+            }
+        }
+        running.forEach((job, context) -> {
+            context.cancel();
+            job.cancel(false);
+        });
+    }
+
+    /**
+     * Java programs start by executing the main method. Here, this main method
+     * solves random boards and prints the number of boards solved per second,
+     * and per second and thread.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        int rows = args.length > 1 ? Integer.parseInt(args[0]) : 3;
+        int columns = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int count = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        List<RandomPermutation> boards = new BoardGenerator(rows, columns, 1).boards(count).toList();
+
+        try (BatchSolver solver = new BatchSolver(threads, HeuristicType.LINEAR_CONFLICT)) {
+            long start = System.nanoTime();
+            long moves = 0;
+            for (CompletableFuture<PuzzleSolver> job : solver.submitAll(boards.stream(), 0, TimeUnit.SECONDS)) {
+                moves += job.join().moves();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d boards, %d moves, %.0f boards/s, %.0f boards/s per thread%n",
+                    count, moves, count / seconds, count / seconds / threads);
+        }
+    }
+}
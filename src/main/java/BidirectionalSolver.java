@@ -0,0 +1,177 @@
+import java.util.Arrays;
+
+/**
+ * Solves a board with a bidirectional breadth-first search: one search goes
+ * forward from the initial board, the other backward from the winning
+ * position, and the solution is found where they meet. Each search only goes
+ * half as deep as a one-directional one, which roughly takes the square root
+ * of the number of positions explored.
+ *
+ * The searches expand whole layers, always on the side with the smaller
+ * frontier. The first position generated by one side that the other side has
+ * already reached gives an optimal solution: before this layer, the positions
+ * reached forward up to depth f and backward up to depth b did not meet, so
+ * every solution has more than f + b moves, and the meeting position is one
+ * move beyond one of the sides, so the solution found has exactly f + b + 1.
+ *
+ * Positions are packed by <b>PackedBoard</b>, so boards are limited to 16
+ * cells. Both searches keep the positions they reached in a
+ * <b>StateTable</b>, along with their depth and the direction of the move
+ * that reached them, from which the two halves of the path are rebuilt.
+ */
+public class BidirectionalSolver implements PuzzleSolver {
+
+    /** The encoding used for the positions explored by the search. */
+    private final PackedBoard packed;
+
+    /** The moves of a solution to an instance of the game. */
+    private MoveSequence path;
+
+    /** The number of positions expanded by both searches. */
+    private long expansions;
+
+    /** One of the two searches. */
+    private static class Side {
+
+        /** For every position reached, its depth times four plus the direction of the move that reached it. */
+        final StateTable reached = new StateTable();
+
+        /** The positions of the last complete layer. */
+        long[] frontier = new long[16];
+
+        /** The index of the empty cell of each position of the frontier. */
+        int[] zeros = new int[16];
+
+        /** The number of positions in the frontier. */
+        int size;
+
+        /** The depth of the frontier. */
+        int depth;
+
+        /**
+         * Starts the search from a position.
+         * @param position the packed position
+         * @param zero the index of its empty cell
+         */
+        Side(long position, int zero) {
+            reached.put(position, 0);
+            frontier[0] = position;
+            zeros[0] = zero;
+            size = 1;
+        }
+    }
+
+    /**
+     * Constructor that finds a solution to the initial board.
+     * @param board the position that the board is currently in.
+     * @throws IllegalArgumentException if the board cannot be solved
+     */
+    public BidirectionalSolver(RandomPermutation board) {
+        Solvability.require(board);
+        packed = new PackedBoard(board.getRows(), board.getColumns());
+        long start = packed.encode(board);
+        Side forward = new Side(start, packed.zeroIndex(start));
+        Side backward = new Side(packed.goal(), packed.size() - 1);
+
+        long meeting = start;
+        int meetingZero = forward.zeros[0];
+        if (start != packed.goal()) {
+            long found = 0;
+            int foundZero = -1;
+            while (foundZero < 0) {
+                if (forward.size == 0 || backward.size == 0) {
+                    throw new IllegalArgumentException("The board cannot be solved");
+                }
+                Side side = forward.size <= backward.size ? forward : backward;
+                Side other = side == forward ? backward : forward;
+                long[] layer = new long[Math.max(16, side.size * 2)];
+                int[] zeros = new int[layer.length];
+                int size = 0;
+
+                for (int i = 0; i < side.size && foundZero < 0; i++) {
+                    long position = side.frontier[i];
+                    int zero = side.zeros[i];
+                    expansions++;
+                    for (int direction = 0; direction < Direction.COUNT; direction++) {
+                        int target = packed.target(zero, direction);
+                        if (target < 0) {
+                            continue;
+                        }
+                        long neighbour = PackedBoard.slide(position, zero, target);
+                        if (side.reached.get(neighbour) != StateTable.MISSING) {
+                            continue;
+                        }
+                        side.reached.put(neighbour, (side.depth + 1) * Direction.COUNT + direction);
+                        if (other.reached.get(neighbour) != StateTable.MISSING) {
+                            found = neighbour;
+                            foundZero = target;
+                            break;
+                        }
+                        if (size == layer.length) {
+                            layer = Arrays.copyOf(layer, size * 2);
+                            zeros = Arrays.copyOf(zeros, size * 2);
+                        }
+                        layer[size] = neighbour;
+                        zeros[size++] = target;
+                    }
+                }
+                side.frontier = layer;
+                side.zeros = zeros;
+                side.size = size;
+                side.depth++;
+            }
+            meeting = found;
+            meetingZero = foundZero;
+        }
+
+        // walk back from the meeting position to the initial board, then on to the goal
+        int forwardLength = forward.reached.get(meeting) / Direction.COUNT;
+        int backwardLength = backward.reached.get(meeting) / Direction.COUNT;
+        long[] path = new long[forwardLength + backwardLength + 1];
+        path[forwardLength] = meeting;
+        walk(forward.reached, meeting, meetingZero, path, forwardLength, -1);
+        walk(backward.reached, meeting, meetingZero, path, forwardLength, 1);
+
+        this.path = MoveSequence.of(packed, path);
+    }
+
+    /**
+     * Follows the moves recorded by one of the searches back to where it started.
+     * @param reached the positions reached by the search
+     * @param position the position to start from
+     * @param zero the index of its empty cell
+     * @param path receives the positions
+     * @param index the index of the starting position in the path
+     * @param step -1 to fill the path backwards, 1 to fill it forwards
+     */
+    private void walk(StateTable reached, long position, int zero, long[] path, int index, int step) {
+        int value = reached.get(position);
+        while (value >= Direction.COUNT) {
+            // the parent is reached by undoing the move
+            int target = packed.target(zero, Direction.opposite(value % Direction.COUNT));
+            position = PackedBoard.slide(position, zero, target);
+            zero = target;
+            index += step;
+            path[index] = position;
+            value = reached.get(position);
+        }
+    }
+
+    /** @return The minimum number of moves to solve the initial board. */
+    @Override
+    public int moves() {
+        return path.length();
+    }
+
+    /** @return The moves of the solution. */
+    @Override
+    public MoveSequence path() {
+        return path;
+    }
+
+    /** @return The number of positions whose neighbours were generated during the search. */
+    @Override
+    public long expansions() {
+        return expansions;
+    }
+}
@@ -18,15 +18,30 @@ public class Board extends JPanel implements ActionListener {
 
     private static final long serialVersionUID = 1L;
 
+    /** Defines the default number of rows. */
+    public static final int DEFAULT_ROWS = 3;
+
+    /** Defines the default number of columns. */
+    public static final int DEFAULT_COLUMNS = 3;
+
+    /** The largest width or height of the cells, in pixels, which is the size of the images. */
+    private static final int MAX_CELL_SIZE = IconAtlas.IMAGE_SIZE;
+
+    /** The largest width or height of the grid of cells, in pixels, reached by shrinking the cells of large boards. */
+    private static final int MAX_GRID_SIZE = 600;
+
     /** Defines the total number of rows. */
-    private static final int NUMBER_OF_ROWS = 3;
+    private final int numberOfRows;
 
     /** Defines the total number of columns. */
-    private static final int NUMBER_OF_COLUMNS = 3;
+    private final int numberOfColumns;
 
     /** A two dimensional array to keep references to all the cells of the board. */
     private Cell[][] board;
 
+    /** The selected cell, or null; no other cell is selected. */
+    private Cell selectedCell;
+
     /** Used by the logic to avoid processing multiple clicks. */
     private boolean allowsClicks = false;
 
@@ -42,25 +57,37 @@ public class Board extends JPanel implements ActionListener {
     /** A number that represents the number of moves the user has taken. */
     private int moves;
 
-    /** Constructor used to setup the board. */
+    /** Constructor used to setup a board of the default size. */
     public Board() {
+        this(DEFAULT_ROWS, DEFAULT_COLUMNS);
+    }
+
+    /**
+     * Constructor used to setup a board of any size.
+     * @param rows the number of rows of the board
+     * @param columns the number of columns of the board
+     */
+    public Board(int rows, int columns) {
+        numberOfRows = rows;
+        numberOfColumns = columns;
+
         // Set up the GUI
         setBackground(Color.WHITE);
-        setLayout(new GridLayout(NUMBER_OF_ROWS, NUMBER_OF_COLUMNS));
+        setLayout(new GridLayout(numberOfRows, numberOfColumns));
         setBorder(BorderFactory.createEmptyBorder(20, 20, 0, 20));
 
         // Setup lower logic of game
-        permutation = new RandomPermutation(NUMBER_OF_ROWS, NUMBER_OF_COLUMNS);
+        permutation = new RandomPermutation(numberOfRows, numberOfColumns);
         permutation.shuffle();
 
         zeroRow = permutation.getZeroRow();
         zeroColumn = permutation.getZeroColumn();
 
         // Setup upper logic of game
-        board = new Cell[NUMBER_OF_ROWS][NUMBER_OF_COLUMNS];
+        board = new Cell[numberOfRows][numberOfColumns];
 
-        for (int row = 0; row < NUMBER_OF_ROWS; row++) {
-            for (int column = 0; column < NUMBER_OF_COLUMNS; column++) {
+        for (int row = 0; row < numberOfRows; row++) {
+            for (int column = 0; column < numberOfColumns; column++) {
                 // Set GUI to match board
                 board[row][column] = new Cell(this, row, column, permutation.getType(row, column));
                 add(board[row][column]);
@@ -70,9 +97,10 @@ public class Board extends JPanel implements ActionListener {
 
     /** Re-initializes all the cells of the grid and resets the board. */
     public void init() {
+        selectedCell = null;
         permutation.shuffle();
-        for (int row = 0; row < NUMBER_OF_ROWS; row++) {
-            for (int column = 0; column < NUMBER_OF_COLUMNS; column++) {
+        for (int row = 0; row < numberOfRows; row++) {
+            for (int column = 0; column < numberOfColumns; column++) {
                 board[row][column].reset(permutation, row, column);
             }
         }
@@ -98,12 +126,33 @@ public class Board extends JPanel implements ActionListener {
         this.allowsClicks = allowClicks;
     }
 
-    /** Sets the attribute <b>selected</b> to <b>false</b> for all the cells of the grid. */
+    /**
+     * Returns <b>true</b> if there is an image for every tile of the board,
+     * and <b>false</b> if the cells display numbers instead.
+     * @return true if the cells display images
+     */
+    public boolean usesImages() {
+        return numberOfRows * numberOfColumns <= Cell.NUM_NUMBERS;
+    }
+
+    /**
+     * Returns the width and height of the cells: the size of the images,
+     * smaller for boards too large to fit.
+     * @return the size of a cell in pixels
+     */
+    public int getCellSize() {
+        return Math.min(MAX_CELL_SIZE, MAX_GRID_SIZE / Math.max(numberOfRows, numberOfColumns));
+    }
+
+    /**
+     * Sets the attribute <b>selected</b> to <b>false</b> for all the cells of
+     * the grid. Only the cell selected by the board can be selected, so it is
+     * the only one touched.
+     */
     public void deselectAllCells() {
-        for (int row = 0; row < NUMBER_OF_ROWS; row++) {
-            for (int column = 0; column < NUMBER_OF_COLUMNS; column++) {
-                board[row][column].setSelected(false);
-            }
+        if (selectedCell != null) {
+            selectedCell.setSelected(false);
+            selectedCell = null;
         }
     }
 
@@ -131,7 +180,8 @@ public class Board extends JPanel implements ActionListener {
      * @param column the specified column
      */
     private void swap(int row, int column) {
-        board[row][column].setSelected(true);
+        selectedCell = board[row][column];
+        selectedCell.setSelected(true);
 
         if (hasNeighbourZero(row, column)) {
             int tempType = board[row][column].getType();
@@ -176,7 +226,7 @@ public class Board extends JPanel implements ActionListener {
                     swap(src.getRow(), src.getColumn());
                     moves++;
                 }
-                src.setSelected(false);
+                deselectAllCells();
                 setAllowsClicks(true);
             }
         }
@@ -0,0 +1,280 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.SplittableRandom;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Draws random solvable boards, every solvable board being equally likely,
+ * unlike the random walk of {@link RandomPermutation#shuffle()} which mostly
+ * stays close to where it started. The cells are shuffled with the
+ * Fisher-Yates algorithm; if the result cannot be solved, swapping the first
+ * two tiles fixes its parity, which pairs every unsolvable board with exactly
+ * one solvable board and keeps the draw uniform.
+ *
+ * Boards at an exact distance from the winning position are drawn from the
+ * <b>DistanceTable</b> of their size, when its resource exists.
+ *
+ * A generator is not thread-safe: each thread uses its own, obtained from
+ * {@link #split()}. The streams split their generator the same way, so they
+ * can run in parallel.
+ */
+public class BoardGenerator {
+
+    /** Describes the geometry of the boards. */
+    private final Grid geometry;
+
+    /** The source of randomness. */
+    private final SplittableRandom random;
+
+    /** The exact distances, loaded when first needed. */
+    private DistanceTable table;
+
+    /** Scratch array receiving the tiles of a board. */
+    private final int[] tiles;
+
+    /**
+     * Constructs a generator with the given seed, generators with the same
+     * seed drawing the same boards.
+     * @param rows The number of rows of the boards
+     * @param columns The number of columns of the boards
+     * @param seed The seed of the random numbers
+     */
+    public BoardGenerator(int rows, int columns, long seed) {
+        this(new Grid(rows, columns), new SplittableRandom(seed), null);
+    }
+
+    /**
+     * Constructs a generator drawing from a random source.
+     * @param geometry the geometry of the boards
+     * @param random the source of randomness, owned by this generator
+     * @param table the exact distances, or null to load them when needed
+     */
+    private BoardGenerator(Grid geometry, SplittableRandom random, DistanceTable table) {
+        this.geometry = geometry;
+        this.random = random;
+        this.table = table;
+        tiles = new int[geometry.size()];
+    }
+
+    /** @return Returns a new generator for the same boards, with its own random numbers */
+    public BoardGenerator split() {
+        return new BoardGenerator(geometry, random.split(), table);
+    }
+
+    /**
+     * Draws a uniform solvable board.
+     * @return Returns the board
+     */
+    public RandomPermutation next() {
+        shuffle();
+        int columns = geometry.getColumns();
+        int[][] board = new int[geometry.getRows()][columns];
+        for (int index = 0; index < tiles.length; index++) {
+            board[index / columns][index % columns] = tiles[index];
+        }
+        return new RandomPermutation(board);
+    }
+
+    /**
+     * Draws a uniform solvable board, packed by <b>PackedBoard</b>, without
+     * allocating. Boards are limited to 16 cells.
+     * @return Returns the packed board
+     */
+    public long nextPacked() {
+        if (tiles.length > PackedBoard.MAX_CELLS) {
+            throw new IllegalStateException("A board of " + tiles.length + " cells does not fit in a long");
+        }
+        shuffle();
+        long position = 0;
+        for (int index = 0; index < tiles.length; index++) {
+            position |= (long) tiles[index] << (index * 4);
+        }
+        return position;
+    }
+
+    /**
+     * Draws a board uniformly among those solved in exactly the given number of moves.
+     * @param distance the number of moves of an optimal solution
+     * @return Returns the board
+     * @throws IllegalStateException if there is no distance table for boards of this size
+     * @throws IllegalArgumentException if no board is at this distance
+     */
+    public RandomPermutation next(int distance) {
+        DistanceTable distances = table();
+        int[] layer = distances.layer(distance);
+        if (layer.length == 0) {
+            throw new IllegalArgumentException("No board is " + distance + " moves away from the winning position");
+        }
+        return distances.getGeometry().decode(distances.position(layer[random.nextInt(layer.length)]));
+    }
+
+    /**
+     * Returns a stream of uniform solvable boards, which can run in parallel.
+     * @param count the number of boards
+     * @return Returns the boards
+     */
+    public Stream<RandomPermutation> boards(long count) {
+        return StreamSupport.stream(new Boards(split(), count, -1), false);
+    }
+
+    /**
+     * Returns a stream of boards solved in exactly the given number of moves,
+     * which can run in parallel.
+     * @param count the number of boards
+     * @param distance the number of moves of an optimal solution
+     * @return Returns the boards
+     */
+    public Stream<RandomPermutation> boards(long count, int distance) {
+        table();
+        return StreamSupport.stream(new Boards(split(), count, distance), false);
+    }
+
+    /**
+     * Returns a stream of uniform solvable packed boards, which can run in parallel.
+     * @param count the number of boards
+     * @return Returns the packed boards
+     */
+    public LongStream packedBoards(long count) {
+        return StreamSupport.longStream(new PackedBoards(split(), count), false);
+    }
+
+    /** Fills the scratch array with a uniform solvable board. */
+    private void shuffle() {
+        for (int i = 0; i < tiles.length; i++) {
+            tiles[i] = i;
+        }
+        for (int i = tiles.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tile = tiles[i];
+            tiles[i] = tiles[j];
+            tiles[j] = tile;
+        }
+        if (!Solvability.isSolvable(tiles, geometry.getColumns())) {
+            // swapping two tiles flips the parity of the permutation only
+            int first = tiles[0] == 0 ? 1 : 0;
+            int second = tiles[first + 1] == 0 ? first + 2 : first + 1;
+            int tile = tiles[first];
+            tiles[first] = tiles[second];
+            tiles[second] = tile;
+        }
+    }
+
+    /**
+     * Returns the distance table of the boards, loading it the first time.
+     * @return Returns the table
+     * @throws IllegalStateException if there is no distance table for boards of this size
+     */
+    private DistanceTable table() {
+        if (table == null) {
+            try {
+                table = DistanceTable.load(geometry.getRows(), geometry.getColumns());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (table == null) {
+                throw new IllegalStateException("No distance table for " + geometry.getRows() + "x"
+                        + geometry.getColumns() + " boards, see DistanceTable");
+            }
+        }
+        return table;
+    }
+
+    /** Draws boards from a generator, giving half of them to a new generator when split. */
+    private static final class Boards implements Spliterator<RandomPermutation> {
+
+        /** The generator of this part of the stream. */
+        private final BoardGenerator generator;
+
+        /** The number of boards left to draw. */
+        private long remaining;
+
+        /** The distance of the boards, or -1 for any distance. */
+        private final int distance;
+
+        Boards(BoardGenerator generator, long remaining, int distance) {
+            this.generator = generator;
+            this.remaining = remaining;
+            this.distance = distance;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super RandomPermutation> action) {
+            if (remaining == 0) {
+                return false;
+            }
+            remaining--;
+            action.accept(distance < 0 ? generator.next() : generator.next(distance));
+            return true;
+        }
+
+        @Override
+        public Spliterator<RandomPermutation> trySplit() {
+            if (remaining < 2) {
+                return null;
+            }
+            long half = remaining / 2;
+            remaining -= half;
+            return new Boards(generator.split(), half, distance);
+        }
+
+        @Override
+        public long estimateSize() {
+            return remaining;
+        }
+
+        @Override
+        public int characteristics() {
+            return SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+    }
+
+    /** Draws packed boards from a generator, giving half of them to a new generator when split. */
+    private static final class PackedBoards implements Spliterator.OfLong {
+
+        /** The generator of this part of the stream. */
+        private final BoardGenerator generator;
+
+        /** The number of boards left to draw. */
+        private long remaining;
+
+        PackedBoards(BoardGenerator generator, long remaining) {
+            this.generator = generator;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            if (remaining == 0) {
+                return false;
+            }
+            remaining--;
+            action.accept(generator.nextPacked());
+            return true;
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            if (remaining < 2) {
+                return null;
+            }
+            long half = remaining / 2;
+            remaining -= half;
+            return new PackedBoards(generator.split(), half);
+        }
+
+        @Override
+        public long estimateSize() {
+            return remaining;
+        }
+
+        @Override
+        public int characteristics() {
+            return SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+import java.util.Arrays;
+
+/**
+ * An open list that is an array of buckets indexed by estimated cost, which
+ * the small integer costs of the puzzle allow: adding a node, lowering its
+ * cost and removing it are constant time, and finding the lowest cost only
+ * moves forward from the last one, since A* mostly removes nodes of
+ * increasing cost.
+ *
+ * Each bucket is a doubly-linked list threaded through arrays indexed by
+ * node, so nodes are moved between buckets without allocating. Nodes are
+ * removed from a bucket last in, first out: the last nodes added are the
+ * children of the last node expanded, so ties mostly go to the deepest
+ * nodes, which are closer to the goal.
+ */
+public class BucketQueue implements OpenList {
+
+    /** Marks the end of a list, and a node that is not in the queue. */
+    private static final int NONE = -1;
+
+    /** The first node of the bucket of each cost, NONE if empty. */
+    private int[] heads = new int[64];
+
+    /** The next node of the bucket of each node. */
+    private int[] next = new int[0];
+
+    /** The previous node of the bucket of each node, NONE for the first one. */
+    private int[] previous = new int[0];
+
+    /** The cost of each node, NONE if it is not in the queue. */
+    private int[] costs = new int[0];
+
+    /** No bucket below this cost holds a node. */
+    private int lowest;
+
+    /** The number of nodes. */
+    private int size;
+
+    /** Constructs an empty queue. */
+    public BucketQueue() {
+        Arrays.fill(heads, NONE);
+    }
+
+    @Override
+    public void push(int node, int cost, int moves) {
+        if (node >= costs.length) {
+            int length = Math.max(node + 1, costs.length * 2);
+            int old = costs.length;
+            next = Arrays.copyOf(next, length);
+            previous = Arrays.copyOf(previous, length);
+            costs = Arrays.copyOf(costs, length);
+            Arrays.fill(costs, old, length, NONE);
+        }
+        if (cost >= heads.length) {
+            int old = heads.length;
+            heads = Arrays.copyOf(heads, Math.max(cost + 1, old * 2));
+            Arrays.fill(heads, old, heads.length, NONE);
+        }
+        int head = heads[cost];
+        next[node] = head;
+        previous[node] = NONE;
+        if (head != NONE) {
+            previous[head] = node;
+        }
+        heads[cost] = node;
+        costs[node] = cost;
+        lowest = Math.min(lowest, cost);
+        size++;
+    }
+
+    @Override
+    public void decrease(int node, int cost, int moves) {
+        unlink(node);
+        push(node, cost, moves);
+    }
+
+    @Override
+    public int pop() {
+        while (heads[lowest] == NONE) {
+            lowest++;
+        }
+        int node = heads[lowest];
+        unlink(node);
+        return node;
+    }
+
+    @Override
+    public boolean contains(int node) {
+        return node < costs.length && costs[node] != NONE;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        for (int cost = lowest; cost < heads.length; cost++) {
+            for (int node = heads[cost]; node != NONE; node = next[node]) {
+                costs[node] = NONE;
+            }
+            heads[cost] = NONE;
+        }
+        lowest = 0;
+        size = 0;
+    }
+
+    /**
+     * Removes a node from its bucket.
+     * @param node the index of a node in the queue
+     */
+    private void unlink(int node) {
+        int after = next[node];
+        int before = previous[node];
+        if (before == NONE) {
+            heads[costs[node]] = after;
+        } else {
+            next[before] = after;
+        }
+        if (after != NONE) {
+            previous[after] = before;
+        }
+        costs[node] = NONE;
+        size--;
+    }
+}
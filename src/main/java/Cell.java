@@ -1,4 +1,6 @@
 import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.BorderFactory;
@@ -51,12 +53,29 @@ public class Cell extends JButton {
     private int row, column;
 
     /**
-     * A an array is used to cache all the images. Since the images are not
-     * modified. All the cells that display the same image reuse the same
-     * <b>ImageIcon</b> object. Notice the use of the keyword <b>static</b>.
+     * True if this cell displays the image of its type, false if it displays
+     * its number. Images only exist for boards of up to <b>NUM_NUMBERS</b> cells.
      */
+    private final boolean images;
 
-    private static final ImageIcon[] icons = new ImageIcon[NUM_NUMBERS + 2];
+    /** The background of a numbered tile, close to the colour of the images. */
+    private static final Color TILE = new Color(0xDD, 0x88, 0xFF);
+
+    /** The size of the font used to display the number of a tile, for cells of the size of the images. */
+    private static final int NUMBER_FONT_SIZE = 48;
+
+    /**
+     * The images of the cells, at the size of the cells of the board. All
+     * the cells that display the same image reuse the same <b>ImageIcon</b>
+     * object of the shared atlas, or null if the cell displays numbers.
+     */
+    private final transient IconAtlas atlas;
+
+    /** The type displayed, or -1 before the first rendering. */
+    private int renderedType = -1;
+
+    /** The selection displayed. */
+    private boolean renderedSelected;
 
     /**
      * Constructor used for initializing a cell of a specified type.
@@ -75,9 +94,17 @@ public class Cell extends JButton {
         this.row = row;
         this.column = column;
         this.type = type;
+        this.images = board.usesImages();
+        int size = board.getCellSize();
+        atlas = images ? IconAtlas.get(size) : null;
 
         setBackground(Color.WHITE);
-        setIcon(getImageIcon());
+        if (!images) {
+            setPreferredSize(new Dimension(size, size));
+            setFont(new Font(Font.SANS_SERIF, Font.BOLD, NUMBER_FONT_SIZE * size / IconAtlas.IMAGE_SIZE));
+            setOpaque(true);
+        }
+        render();
 
         Border emptyBorder = BorderFactory.createEmptyBorder(0, 0, 0, 0);
         setBorder(emptyBorder);
@@ -86,26 +113,34 @@ public class Cell extends JButton {
     }
 
     /**
-     * Determine the image to use based on the cell type. Uses
-     * <b>getResource</b> to locate the image file, either on the file system or
-     * the .jar file. Implements a caching mechanism.
+     * Determine the image to use based on the cell type, from the shared
+     * <b>IconAtlas</b>, whose images are read once from the classpath.
      *
      * @return the image to be displayed by the button
      */
 
     private ImageIcon getImageIcon() {
-        int id;
-        if (selected) {
-            id = NUM_NUMBERS + 1;
-        } else {
-            id = type;
-        }
+        return atlas.icon(type, selected);
+    }
 
-        if (icons[id] == null) {
-            String strId = Integer.toString(id);
-            icons[id] = new ImageIcon("src/main/resources/img-0" + strId + ".png");
+    /**
+     * Displays the type of this cell, either as an image or as a number. A
+     * cell whose type and selection did not change is left as is, so only
+     * the cells that changed are repainted.
+     */
+
+    private void render() {
+        if (type == renderedType && selected == renderedSelected) {
+            return;
+        }
+        renderedType = type;
+        renderedSelected = selected;
+        if (images) {
+            setIcon(getImageIcon());
+        } else {
+            setText(type == EMPTY ? "" : Integer.toString(type));
+            setBackground(type == EMPTY ? Color.WHITE : selected ? TILE.darker() : TILE);
         }
-        return icons[id];
     }
 
     /**
@@ -115,8 +150,8 @@ public class Cell extends JButton {
 
     public void reset(RandomPermutation permutation, int row, int column) {
         type = permutation.getType(row, column);
-        setIcon(getImageIcon());
         selected = false;
+        render();
     }
 
     /**
@@ -150,7 +185,7 @@ public class Cell extends JButton {
 
     public void setType(int type) {
         this.type = type;
-        setIcon(getImageIcon());
+        render();
     }
 
     /**
@@ -185,7 +220,7 @@ public class Cell extends JButton {
 
     public void setSelected(boolean selected) {
         this.selected = selected;
-        setIcon(getImageIcon());
+        render();
     }
 
     /**
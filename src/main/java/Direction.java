@@ -0,0 +1,50 @@
+/**
+ * Acts as an enum for code readability. A direction always describes where the
+ * empty cell moves to, not where the tile moves to.
+ */
+public final class Direction {
+    public static final int UP = 0;
+    public static final int DOWN = 1;
+    public static final int LEFT = 2;
+    public static final int RIGHT = 3;
+
+    /** The number of directions. */
+    public static final int COUNT = 4;
+
+    /** The letter of each direction, in the order of their values. */
+    private static final String LETTERS = "UDLR";
+
+    private Direction() {
+    }
+
+    /**
+     * Returns the direction that undoes the given one.
+     * @param direction one of the four directions
+     * @return the opposite direction
+     */
+    public static int opposite(int direction) {
+        return direction ^ 1;
+    }
+
+    /**
+     * Returns the letter naming a direction in move lists.
+     * @param direction one of the four directions
+     * @return U, D, L or R
+     */
+    public static char letter(int direction) {
+        return LETTERS.charAt(direction);
+    }
+
+    /**
+     * Returns the direction the empty cell moved in between two positions one move apart.
+     * @param from the position before the move
+     * @param to the position after the move
+     * @return the direction of the move
+     */
+    public static int between(RandomPermutation from, RandomPermutation to) {
+        if (to.getZeroRow() != from.getZeroRow()) {
+            return to.getZeroRow() < from.getZeroRow() ? UP : DOWN;
+        }
+        return to.getZeroColumn() < from.getZeroColumn() ? LEFT : RIGHT;
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Solves a board without any search, using the exact distances of a
+ * <b>DistanceTable</b>: from every position, the solver moves to the
+ * neighbour that is one move closer to the winning position. The solution is
+ * optimal, and found in time proportional to its length.
+ */
+public class DistanceSolver implements PuzzleSolver {
+
+    /** The moves of a solution to an instance of the game. */
+    private MoveSequence path;
+
+    /** The number of positions expanded by the search. */
+    private long expansions;
+
+    /**
+     * Constructor that finds a solution to the initial board.
+     * @param board the position that the board is currently in.
+     */
+    public DistanceSolver(RandomPermutation board) {
+        this(board, DistanceTable.get(board.getRows(), board.getColumns()));
+    }
+
+    /**
+     * Constructor that finds a solution to the initial board using the given table.
+     * @param board the position that the board is currently in.
+     * @param table the distances of every position of the board
+     * @throws IllegalArgumentException if the board cannot be solved
+     */
+    public DistanceSolver(RandomPermutation board, DistanceTable table) {
+        Solvability.require(board);
+        PackedBoard packed = table.getGeometry();
+        long position = packed.encode(board);
+        int zero = packed.zeroIndex(position);
+        int distance = table.distance(position);
+
+        // greedy descent, there is always a neighbour one move closer
+        int[] directions = new int[distance];
+        for (int i = 0; i < directions.length; i++) {
+            expansions++;
+            for (int direction = 0; direction < Direction.COUNT; direction++) {
+                int target = packed.target(zero, direction);
+                if (target < 0) {
+                    continue;
+                }
+                long neighbour = PackedBoard.slide(position, zero, target);
+                if (table.distance(neighbour) == distance - 1) {
+                    directions[i] = direction;
+                    position = neighbour;
+                    zero = target;
+                    distance--;
+                    break;
+                }
+            }
+        }
+        path = new MoveSequence(board, directions, directions.length);
+    }
+
+    /** @return The minimum number of moves to solve the initial board. */
+    @Override
+    public int moves() {
+        return path.length();
+    }
+
+    /** @return The moves of the solution. */
+    @Override
+    public MoveSequence path() {
+        return path;
+    }
+
+    /** @return The number of positions whose neighbours were generated during the search. */
+    @Override
+    public long expansions() {
+        return expansions;
+    }
+}
@@ -0,0 +1,335 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The exact number of moves needed to solve every position of a small board,
+ * one byte per position. The table is generated offline by a breadth-first
+ * search backwards from the winning position, and stored as a resource named
+ * <b>distances-RxC.bin</b> that is memory-mapped when the application starts.
+ *
+ * Positions are perfectly hashed to consecutive indices: the index of the
+ * empty cell, followed by the Lehmer rank of the order of the tiles halved.
+ * Swapping the last two tiles flips the parity of a position without moving
+ * the empty cell, so exactly one of two positions with consecutive ranks is
+ * solvable, and the table has no hole. For the 3x3 board, this is 181,440
+ * bytes.
+ */
+public class DistanceTable {
+
+    /** Marks a position the breadth-first search has not reached yet. */
+    private static final int UNKNOWN = 0xFF;
+
+    /** The tables that have been loaded, by board dimensions. */
+    private static final Map<String, DistanceTable> loaded = new HashMap<>();
+
+    /** Describes the geometry of the board. */
+    private final PackedBoard geometry;
+
+    /** The factorials of 0 to size() - 1. */
+    private final int[] factorials;
+
+    /** The distance of every position, read-only once generated. */
+    private final ByteBuffer distances;
+
+    /** The indices of the positions at each distance, listed when first asked for. */
+    private final Map<Integer, int[]> layers = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a table over the given distances.
+     * @param geometry the board the table describes
+     * @param distances one byte per position
+     */
+    private DistanceTable(PackedBoard geometry, ByteBuffer distances) {
+        this.geometry = geometry;
+        this.distances = distances;
+        factorials = new int[geometry.size()];
+        factorials[0] = 1;
+        for (int i = 1; i < factorials.length; i++) {
+            factorials[i] = factorials[i - 1] * i;
+        }
+    }
+
+    /**
+     * Returns the number of positions of a board of the given dimensions,
+     * i.e. half the permutations of its cells.
+     * @param rows The number of rows of the board
+     * @param columns The number of columns of the board
+     * @return The number of entries of the table
+     */
+    public static int capacity(int rows, int columns) {
+        long permutations = 1;
+        for (int i = 2; i <= rows * columns; i++) {
+            permutations *= i;
+            if (permutations / 2 > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("A " + rows + "x" + columns + " board is too large for a distance table");
+            }
+        }
+        return (int) (permutations / 2);
+    }
+
+    /**
+     * Returns the table for boards of the given dimensions. The table is
+     * memory-mapped from its resource the first time it is requested, and
+     * generated if the resource is missing.
+     * @param rows The number of rows of the board
+     * @param columns The number of columns of the board
+     * @return The distance table
+     */
+    public static synchronized DistanceTable get(int rows, int columns) {
+        String name = resourceName(rows, columns);
+        DistanceTable table = loaded.get(name);
+        if (table == null) {
+            try {
+                table = load(rows, columns);
+            } catch (IOException e) {
+                table = null;
+            }
+            if (table == null) {
+                table = generate(rows, columns);
+            }
+            loaded.put(name, table);
+        }
+        return table;
+    }
+
+    /**
+     * Loads the table from its resource. If the resource is a file, it is
+     * memory-mapped, otherwise (e.g. inside a .jar file) it is read.
+     * @param rows The number of rows of the board
+     * @param columns The number of columns of the board
+     * @return The table, or null if there is no resource for these dimensions
+     * @throws IOException if the resource cannot be read
+     */
+    public static DistanceTable load(int rows, int columns) throws IOException {
+        URL url = DistanceTable.class.getResource("/" + resourceName(rows, columns));
+        if (url == null) {
+            return null;
+        }
+        int capacity = capacity(rows, columns);
+        ByteBuffer distances;
+        if ("file".equals(url.getProtocol())) {
+            Path path;
+            try {
+                path = Paths.get(url.toURI());
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                if (channel.size() != capacity) {
+                    throw new IOException(path + " does not hold " + capacity + " distances");
+                }
+                distances = channel.map(FileChannel.MapMode.READ_ONLY, 0, capacity);
+            }
+        } else {
+            try (InputStream in = url.openStream()) {
+                byte[] bytes = in.readNBytes(capacity + 1);
+                if (bytes.length != capacity) {
+                    throw new IOException(url + " does not hold " + capacity + " distances");
+                }
+                distances = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+            }
+        }
+        return new DistanceTable(new PackedBoard(rows, columns), distances);
+    }
+
+    /**
+     * Generates the table by a breadth-first search backwards from the
+     * winning position.
+     * @param rows The number of rows of the board
+     * @param columns The number of columns of the board
+     * @return The distance table
+     */
+    public static DistanceTable generate(int rows, int columns) {
+        int capacity = capacity(rows, columns);
+        byte[] bytes = new byte[capacity];
+        Arrays.fill(bytes, (byte) UNKNOWN);
+        DistanceTable table = new DistanceTable(new PackedBoard(rows, columns), ByteBuffer.wrap(bytes));
+        PackedBoard geometry = table.geometry;
+
+        // every position is enqueued exactly once, along with the index of its empty cell
+        long[] queue = new long[capacity];
+        int[] zeros = new int[capacity];
+        int head = 0, tail = 0;
+        queue[tail] = geometry.goal();
+        zeros[tail++] = geometry.size() - 1;
+        bytes[table.index(geometry.goal())] = 0;
+
+        while (head < tail) {
+            long position = queue[head];
+            int zero = zeros[head++];
+            int distance = bytes[table.index(position)] & 0xFF;
+            for (int direction = 0; direction < Direction.COUNT; direction++) {
+                int target = geometry.target(zero, direction);
+                if (target < 0) {
+                    continue;
+                }
+                long neighbour = PackedBoard.slide(position, zero, target);
+                int index = table.index(neighbour);
+                if ((bytes[index] & 0xFF) == UNKNOWN) {
+                    bytes[index] = (byte) (distance + 1);
+                    queue[tail] = neighbour;
+                    zeros[tail++] = target;
+                }
+            }
+        }
+        return new DistanceTable(geometry, ByteBuffer.wrap(bytes).asReadOnlyBuffer());
+    }
+
+    /**
+     * Computes the index of a solvable position in the table.
+     * @param tiles The packed position
+     * @return An index between 0 and the capacity of the table
+     */
+    public int index(long tiles) {
+        int size = geometry.size();
+        int zero = -1;
+        int rank = 0;
+        int seen = 0;
+        for (int index = 0; index < size; index++) {
+            int tile = PackedBoard.tile(tiles, index);
+            if (tile == 0) {
+                zero = index;
+                continue;
+            }
+            // the Lehmer code digit is the number of smaller tiles that come later
+            int smaller = tile - 1 - Integer.bitCount(seen & ((1 << tile) - 1));
+            seen |= 1 << tile;
+            rank += smaller * factorials[size - 2 - (index - (zero >= 0 ? 1 : 0))];
+        }
+        return zero * (factorials[size - 1] / 2) + rank / 2;
+    }
+
+    /**
+     * Computes the solvable position at an index of the table, the inverse of {@link #index(long)}.
+     * @param index An index between 0 and the capacity of the table
+     * @return The packed position
+     */
+    public long position(int index) {
+        int size = geometry.size();
+        int half = factorials[size - 1] / 2;
+        int zero = index / half;
+        // one of the two ranks halved to this index is solvable
+        for (int rank = (index % half) * 2; ; rank++) {
+            long tiles = 0;
+            int used = 0;
+            int rest = rank;
+            int cell = 0;
+            for (int i = size - 2; i >= 0; i--, cell++) {
+                if (cell == zero) {
+                    cell++;
+                }
+                // the digit-th smallest tile not placed yet
+                int digit = rest / factorials[i];
+                rest %= factorials[i];
+                int tile = 0;
+                do {
+                    tile++;
+                    if ((used & 1 << tile) == 0) {
+                        digit--;
+                    }
+                } while (digit >= 0);
+                used |= 1 << tile;
+                tiles |= (long) tile << (cell * 4);
+            }
+            if (Solvability.isSolvable(tiles, geometry)) {
+                return tiles;
+            }
+        }
+    }
+
+    /**
+     * Lists the positions at a distance from the winning position.
+     * @param distance The number of moves
+     * @return The indices of the positions, in increasing order, not to be modified
+     */
+    public int[] layer(int distance) {
+        return layers.computeIfAbsent(distance, d -> {
+            int count = 0;
+            for (int index = 0; index < distances.capacity(); index++) {
+                if ((distances.get(index) & 0xFF) == d) {
+                    count++;
+                }
+            }
+            int[] layer = new int[count];
+            count = 0;
+            for (int index = 0; index < distances.capacity(); index++) {
+                if ((distances.get(index) & 0xFF) == d) {
+                    layer[count++] = index;
+                }
+            }
+            return layer;
+        });
+    }
+
+    /**
+     * Returns the number of moves needed to solve a position.
+     * @param tiles The packed position, which must be solvable
+     * @return The exact distance to the winning position
+     */
+    public int distance(long tiles) {
+        return distances.get(index(tiles)) & 0xFF;
+    }
+
+    /** @return Returns the geometry of the board described by the table */
+    public PackedBoard getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Writes the table to a file, in the format of the resource.
+     * @param path The file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = distances.duplicate();
+            buffer.rewind();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Returns the name of the resource holding the table for the given dimensions.
+     * @param rows The number of rows of the board
+     * @param columns The number of columns of the board
+     * @return The name of the resource
+     */
+    private static String resourceName(int rows, int columns) {
+        return "distances-" + rows + "x" + columns + ".bin";
+    }
+
+    /**
+     * Generates a distance table and writes it as a resource. Usage:
+     * <code>java DistanceTable [rows columns [directory]]</code>, by default
+     * a 3x3 table in src/main/resources.
+     *
+     * @param args the command line arguments
+     * @throws IOException if the table cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 1 ? Integer.parseInt(args[0]) : 3;
+        int columns = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        Path directory = Paths.get(args.length > 2 ? args[2] : "src/main/resources");
+
+        long start = System.currentTimeMillis();
+        DistanceTable table = generate(rows, columns);
+        Path path = directory.resolve(resourceName(rows, columns));
+        table.write(path);
+        long stop = System.currentTimeMillis();
+        System.out.printf("Wrote %d distances to %s in %d ms. %n", capacity(rows, columns), path, stop - start);
+    }
+}
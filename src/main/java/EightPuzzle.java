@@ -2,12 +2,24 @@ import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import javax.swing.*;
 
 /**
  * This is the main window of the application. A <b>Board</b> object is placed
  * in the center of the frame. The reset button is placed at the bottom.
  *
+ * The solver runs in the background, in a <b>SwingWorker</b>, so the window
+ * stays responsive: the number of positions expanded and waiting is shown
+ * while it runs, and it can be cancelled. Boards of up to 16 cells are solved
+ * with <b>AnytimeSolver</b>, and the animation starts with its first
+ * solution. When a shorter one comes, the animation switches to it if going
+ * back to where the two solutions part and following the new one is shorter
+ * than finishing the current one.
+ *
  * @author Edward Poon, University of Ottawa
  * @author Marcel Turcotte, University of Ottawa
  */
@@ -21,32 +33,90 @@ public class EightPuzzle extends JFrame implements ActionListener {
      */
     private Board board;
 
+    /** Starts a new game. */
+    private final JButton newGame;
+
+    /** Starts the solver. */
+    private final JButton solve;
+
+    /** Stops the solver and the animation. */
+    private final JButton cancel;
+
+    /** Shows the progress of the solver. */
+    private final JLabel status;
+
+    /** Updates the status while the solver runs. */
+    private final Timer progress;
+
+    /** Plays the moves, half a second apart. */
+    private final Timer animation;
+
+    /** The running solver, or null. */
+    private transient SolveTask task;
+
+    /** The directions still to play. */
+    private int[] plan = new int[0];
+
+    /** The index in the plan of the next move to play. */
+    private int next;
+
+    /** The moves leading from the board the solver started from to the current one, without undone moves. */
+    private int[] played = new int[16];
+
+    /** The number of moves in played. */
+    private int playedLength;
+
     /**
      * Creates the layout of the application.
      */
     public EightPuzzle() {
+        this(Board.DEFAULT_ROWS, Board.DEFAULT_COLUMNS);
+    }
+
+    /**
+     * Creates the layout of the application for a board of any size.
+     * @param rows the number of rows of the board
+     * @param columns the number of columns of the board
+     */
+    public EightPuzzle(int rows, int columns) {
         super("Eight Puzzle");
 
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setBackground(Color.WHITE);
 
-        board = new Board();
+        board = new Board(rows, columns);
         add(board, BorderLayout.CENTER);
 
-        JButton button = new JButton("Start new game");
-        button.setFocusPainted(false);
-        button.addActionListener(this);
+        newGame = new JButton("Start new game");
+        newGame.setFocusPainted(false);
+        newGame.addActionListener(this);
 
         // solve button
-        JButton solve = new JButton("Solve");
+        solve = new JButton("Solve");
         solve.setFocusPainted(false);
         solve.addActionListener(this);
 
+        cancel = new JButton("Cancel");
+        cancel.setFocusPainted(false);
+        cancel.addActionListener(this);
+        cancel.setEnabled(false);
+
         JPanel control = new JPanel();
         control.setBackground(Color.WHITE);
-        control.add(button);
+        control.add(newGame);
         control.add(solve);
-        add(control, BorderLayout.SOUTH);
+        control.add(cancel);
+
+        status = new JLabel(" ", SwingConstants.CENTER);
+        JPanel south = new JPanel(new BorderLayout());
+        south.setBackground(Color.WHITE);
+        south.add(control, BorderLayout.CENTER);
+        south.add(status, BorderLayout.SOUTH);
+        add(south, BorderLayout.SOUTH);
+
+        progress = new Timer(100, e -> showProgress());
+        // half a second
+        animation = new Timer(500, e -> step());
 
         pack();
         setResizable(false);
@@ -58,44 +128,34 @@ public class EightPuzzle extends JFrame implements ActionListener {
     /**
      * This method must be implemented as part of the contract specified by
      * ActionListener. When the user clicks the reset button, it calls the
-     * method <b>reset</b> of the object designated by <b>board</b>.
+     * method <b>reset</b> of the object designated by <b>board</b>. The solve
+     * button starts the solver in the background, and the cancel button stops
+     * it along with the animation.
      *
      * @see java.awt.event.ActionListener#actionPerformed(java.awt.event.ActionEvent)
      */
     public void actionPerformed(ActionEvent e) {
-        if (e.getActionCommand().equals("Solve")) {
-            board.setAllowsClicks(false);
-
-            // benchmarks
-            long start, stop;
-            start = System.currentTimeMillis();
-
-            Solver solver = new Solver(board.getPermutation());
-
-            stop = System.currentTimeMillis();
-            System.out.printf("Solved in %d moves with runtime: %d ms. %n", solver.moves(), stop - start);
-
-            // half a second
-            Timer timer = new Timer(500, null);
-            timer.addActionListener(new ActionListener() {
-                @Override
-                public void actionPerformed(ActionEvent e) {
-                    if (!solver.solution().empty()) {
-                        RandomPermutation position = solver.solution().pop();
-                        int row = position.getZeroRow();
-                        int col = position.getZeroColumn();
-                        // don't allow the user to click when the solver is working
-                        board.setAllowsClicks(true);
-                        board.clickCell(row, col);
-                        board.setAllowsClicks(false);
-                    } else {
-                        timer.stop();
-                        board.setAllowsClicks(true);
-                    }
-                }
-            });
-            timer.start();
+        if (e.getActionCommand().equals("Solve") && task == null && board.allowsClicks()) {
             board.setAllowsClicks(false);
+            newGame.setEnabled(false);
+            solve.setEnabled(false);
+            cancel.setEnabled(true);
+            plan = new int[0];
+            next = 0;
+            playedLength = 0;
+            // the solver gets its own copy, the animation moves the board while it runs
+            task = new SolveTask(board.getPermutation().clone());
+            task.execute();
+            progress.start();
+        } else if (e.getActionCommand().equals("Cancel")) {
+            if (task != null) {
+                // the rest is done once the task is
+                task.cancel(true);
+            } else {
+                animation.stop();
+                status.setText("Cancelled");
+                finish();
+            }
         } else if (e.getActionCommand().equals("Start new game") && board.allowsClicks()) {
             board.setAllowsClicks(false);
             board.init();
@@ -103,13 +163,189 @@ public class EightPuzzle extends JFrame implements ActionListener {
         }
     }
 
+    /** Shows the progress of the running solver. */
+    private void showProgress() {
+        if (task != null) {
+            status.setText(String.format("Expanded %,d positions, %,d waiting", task.context.expansions(),
+                    task.context.frontier()));
+        }
+    }
+
+    /**
+     * Plays a solution, or switches to it if that is shorter than finishing
+     * the moves planned: the moves played since the two part are undone, then
+     * the rest of the new solution is played.
+     * @param path a solution from the board the solver started from
+     */
+    private void follow(MoveSequence path) {
+        int common = 0;
+        while (common < playedLength && common < path.length() && played[common] == path.move(common)) {
+            common++;
+        }
+        int length = (playedLength - common) + (path.length() - common);
+        if (plan.length > 0 && length >= plan.length - next) {
+            return;
+        }
+        int[] moves = new int[length];
+        int index = 0;
+        for (int i = playedLength - 1; i >= common; i--) {
+            moves[index++] = Direction.opposite(played[i]);
+        }
+        for (int i = common; i < path.length(); i++) {
+            moves[index++] = path.move(i);
+        }
+        plan = moves;
+        next = 0;
+        animation.start();
+    }
+
+    /** Plays the next move of the plan, and finishes once there is none left. */
+    private void step() {
+        if (next == plan.length) {
+            animation.stop();
+            if (task == null) {
+                finish();
+            }
+            return;
+        }
+        int direction = plan[next++];
+        if (playedLength > 0 && played[playedLength - 1] == Direction.opposite(direction)) {
+            playedLength--;
+        } else {
+            if (playedLength == played.length) {
+                played = Arrays.copyOf(played, playedLength * 2);
+            }
+            played[playedLength++] = direction;
+        }
+
+        RandomPermutation position = board.getPermutation();
+        int row = position.getZeroRow();
+        int column = position.getZeroColumn();
+        switch (direction) {
+        case Direction.UP:
+            row--;
+            break;
+        case Direction.DOWN:
+            row++;
+            break;
+        case Direction.LEFT:
+            column--;
+            break;
+        default:
+            column++;
+            break;
+        }
+        boolean last = next == plan.length;
+        if (last && task != null) {
+            // the board is solved, and reset once the last move is played: no later solution applies
+            task.cancel(true);
+        }
+        // don't allow the user to click when the solver is working
+        board.setAllowsClicks(true);
+        board.clickCell(row, column);
+        board.setAllowsClicks(false);
+        if (last) {
+            animation.stop();
+            finish();
+        }
+    }
+
+    /** Gives the board back to the user once the solver and the animation are both done. */
+    private void finish() {
+        if (task != null || animation.isRunning()) {
+            return;
+        }
+        plan = new int[0];
+        next = 0;
+        newGame.setEnabled(true);
+        solve.setEnabled(true);
+        cancel.setEnabled(false);
+        board.setAllowsClicks(true);
+    }
+
+    /**
+     * Solves a board in the background, publishing each solution as soon as
+     * it is found.
+     */
+    private class SolveTask extends SwingWorker<PuzzleSolver, MoveSequence> {
+
+        /** The board to solve, a copy of the one shown. */
+        private final RandomPermutation start;
+
+        /** The buffers of the search, also read to show its progress. */
+        private final SearchContext context = new SearchContext();
+
+        /** The value of System.nanoTime() when the solver started. */
+        private final long startTime = System.nanoTime();
+
+        /**
+         * Constructs the task.
+         * @param start the board to solve, not shared with the GUI
+         */
+        SolveTask(RandomPermutation start) {
+            this.start = start;
+        }
+
+        @Override
+        protected PuzzleSolver doInBackground() {
+            context.begin(this, 0);
+            int rows = start.getRows();
+            int columns = start.getColumns();
+            Heuristic heuristic = new LinearConflictHeuristic(rows, columns);
+            if (PackedBoard.fits(rows, columns)) {
+                return new AnytimeSolver(start, heuristic, context, AnytimeSolver.DEFAULT_WEIGHT,
+                        AnytimeSolver.DEFAULT_DECREMENT, (path, bound) -> publish(path));
+            }
+            return new IDASolver(start, heuristic, context);
+        }
+
+        @Override
+        protected void process(List<MoveSequence> paths) {
+            if (task == this) {
+                // the last one is the shortest
+                follow(paths.get(paths.size() - 1));
+            }
+        }
+
+        @Override
+        protected void done() {
+            progress.stop();
+            task = null;
+            try {
+                PuzzleSolver solver = get();
+                long time = (System.nanoTime() - startTime) / 1_000_000;
+                status.setText(String.format("Solved in %d moves, %,d positions expanded in %d ms",
+                        solver.moves(), solver.expansions(), time));
+                System.out.printf("Solved in %d moves with runtime: %d ms. %n", solver.moves(), time);
+                follow(solver.path());
+            } catch (CancellationException e) {
+                if (plan.length == 0 || next < plan.length) {
+                    // cancelled by the user, not by the end of the animation
+                    status.setText("Cancelled");
+                    animation.stop();
+                } else {
+                    status.setText("Solved in " + playedLength + " moves");
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                status.setText("The solver failed: " + e.getCause());
+                animation.stop();
+            }
+            finish();
+        }
+    }
+
     /**
      * Java programs start by executing the main method. Here, this main method
-     * creates the main window of the application.
+     * creates the main window of the application. The number of rows and
+     * columns of the board can be given as arguments, 3 by 3 by default.
      *
      * @param args the command line arguments
      */
     public static void main(String[] args) {
-        new EightPuzzle();
+        if (args.length >= 2) {
+            new EightPuzzle(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+        } else {
+            new EightPuzzle();
+        }
     }
 }
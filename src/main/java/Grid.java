@@ -0,0 +1,84 @@
+/**
+ * The geometry of a board of any size: its dimensions, and the cells the
+ * empty cell can move to. Cells are identified by their row-major index.
+ */
+public class Grid {
+
+    /** The number of rows of the board. */
+    private final int rows;
+
+    /** The number of columns of the board. */
+    private final int columns;
+
+    /**
+     * For every position of the empty cell and every direction, the index of
+     * the cell the empty cell moves to, or -1 if the move leaves the board.
+     */
+    private final int[] targets;
+
+    /**
+     * Constructs the geometry of a board of the given dimensions.
+     * @param rows The number of rows of the board
+     * @param columns The number of columns of the board
+     */
+    public Grid(int rows, int columns) {
+        if (rows < 2 || columns < 2) {
+            throw new IllegalArgumentException("A board needs at least two rows and two columns");
+        }
+        this.rows = rows;
+        this.columns = columns;
+
+        int cells = rows * columns;
+        targets = new int[cells * Direction.COUNT];
+        for (int index = 0; index < cells; index++) {
+            int row = index / columns;
+            int column = index % columns;
+            int base = index * Direction.COUNT;
+            targets[base + Direction.UP] = row > 0 ? index - columns : -1;
+            targets[base + Direction.DOWN] = row < rows - 1 ? index + columns : -1;
+            targets[base + Direction.LEFT] = column > 0 ? index - 1 : -1;
+            targets[base + Direction.RIGHT] = column < columns - 1 ? index + 1 : -1;
+        }
+    }
+
+    /** @return Returns the number of rows of the board */
+    public int getRows() {
+        return rows;
+    }
+
+    /** @return Returns the number of columns of the board */
+    public int getColumns() {
+        return columns;
+    }
+
+    /** @return Returns the number of cells of the board */
+    public int size() {
+        return rows * columns;
+    }
+
+    /**
+     * Returns the cell the empty cell moves to in a given direction.
+     * @param zero The row-major index of the empty cell
+     * @param direction One of the constants of <b>Direction</b>
+     * @return The index of the target cell, or -1 if the move leaves the board
+     */
+    public int target(int zero, int direction) {
+        return targets[zero * Direction.COUNT + direction];
+    }
+
+    /**
+     * Returns the direction of a move of the empty cell between two adjacent cells.
+     * @param from The row-major index of the empty cell before the move
+     * @param to The row-major index of the empty cell after the move
+     * @return One of the constants of <b>Direction</b>
+     */
+    public int direction(int from, int to) {
+        if (to - from == -columns) {
+            return Direction.UP;
+        }
+        if (to - from == columns) {
+            return Direction.DOWN;
+        }
+        return to < from ? Direction.LEFT : Direction.RIGHT;
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * An admissible estimate of the number of moves needed to solve a board,
+ * used to guide the search. A heuristic is built for boards of given
+ * dimensions and receives positions as the tiles in row-major order, 0 being
+ * the empty cell. Implementations must not keep state between calls, so that
+ * one instance can be shared by concurrent searches.
+ *
+ * A heuristic whose update needs more than the estimate of the previous
+ * position can describe each position by an <b>int</b> state, which the
+ * search stores with the position and hands back to
+ * {@link #update(int, int, int[], int, int)} and
+ * {@link #advance(int, int[], int, int)} for the positions reached from it.
+ * Heuristics that need no state keep the default methods.
+ */
+public interface Heuristic {
+
+    /**
+     * Evaluates a position from scratch.
+     * @param tiles the tiles in row-major order
+     * @return a lower bound of the number of moves to the winning position
+     */
+    int estimate(int[] tiles);
+
+    /**
+     * Evaluates the position reached by sliding the tile found at <b>to</b>
+     * from the neighbouring cell <b>from</b>, knowing the estimate of the
+     * position before the move. The search calls this for every generated
+     * position, so implementations only look at what the move changed.
+     * @param estimate the estimate of the position before the move
+     * @param tiles the tiles in row-major order, after the move
+     * @param from the row-major index the tile moved from, now the empty cell
+     * @param to the row-major index the tile moved to
+     * @return the estimate of the position after the move
+     */
+    int update(int estimate, int[] tiles, int from, int to);
+
+    /**
+     * Computes the state of a position from scratch.
+     * @param tiles the tiles in row-major order
+     * @return the state of the position, 0 by default
+     */
+    default int state(int[] tiles) {
+        return 0;
+    }
+
+    /**
+     * Computes the state of the position reached by a move, as described by
+     * {@link #update(int, int[], int, int)}.
+     * @param state the state of the position before the move
+     * @param tiles the tiles in row-major order, after the move
+     * @param from the row-major index the tile moved from, now the empty cell
+     * @param to the row-major index the tile moved to
+     * @return the state of the position after the move, unchanged by default
+     */
+    default int advance(int state, int[] tiles, int from, int to) {
+        return state;
+    }
+
+    /**
+     * Evaluates the position reached by a move, knowing the estimate and the
+     * state of the position before the move.
+     * @param estimate the estimate of the position before the move
+     * @param state the state of the position before the move
+     * @param tiles the tiles in row-major order, after the move
+     * @param from the row-major index the tile moved from, now the empty cell
+     * @param to the row-major index the tile moved to
+     * @return the estimate of the position after the move, by default that of {@link #update(int, int[], int, int)}
+     */
+    default int update(int estimate, int state, int[] tiles, int from, int to) {
+        return update(estimate, tiles, from, to);
+    }
+}
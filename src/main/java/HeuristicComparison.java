@@ -0,0 +1,61 @@
+import java.util.Random;
+
+/**
+ * Compares the heuristics of <b>HeuristicType</b> on the same set of random
+ * boards: for each one, prints the number of expanded positions, the time
+ * spent, and the time per expansion, which tells whether a better estimate is
+ * worth its cost. Usage:
+ * <code>java HeuristicComparison [rows columns [boards [seed [astar|ida]]]]</code>
+ */
+public class HeuristicComparison {
+
+    /** The number of random moves made from the winning position to create a board. */
+    private static final int SHUFFLE_MOVES = 1000;
+
+    /**
+     * Java programs start by executing the main method. Here, this main method
+     * solves the boards with each heuristic and prints the results.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        int rows = args.length > 1 ? Integer.parseInt(args[0]) : 3;
+        int columns = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int count = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+        boolean astar = args.length <= 4 || args[4].equals("astar");
+
+        // the same boards for every heuristic
+        Random random = new Random(seed);
+        PackedBoard packed = new PackedBoard(rows, columns);
+        RandomPermutation[] boards = new RandomPermutation[count];
+        for (int i = 0; i < count; i++) {
+            long position = packed.goal();
+            int zero = packed.size() - 1;
+            for (int move = 0; move < SHUFFLE_MOVES; move++) {
+                int target = packed.target(zero, random.nextInt(Direction.COUNT));
+                if (target >= 0) {
+                    position = PackedBoard.slide(position, zero, target);
+                    zero = target;
+                }
+            }
+            boards[i] = packed.decode(position);
+        }
+
+        System.out.printf("%-18s %10s %14s %10s %14s %n", "heuristic", "moves", "expansions", "ms", "ns/expansion");
+        for (HeuristicType type : HeuristicType.values()) {
+            Heuristic heuristic = type.create(rows, columns);
+            long moves = 0;
+            long expansions = 0;
+            long start = System.nanoTime();
+            for (RandomPermutation board : boards) {
+                PuzzleSolver solver = astar ? new Solver(board, heuristic) : new IDASolver(board, heuristic);
+                moves += solver.moves();
+                expansions += solver.expansions();
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("%-18s %10d %14d %10d %14.1f %n", type, moves, expansions, elapsed / 1000000,
+                    (double) elapsed / Math.max(1, expansions));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * The heuristics that can be built from the dimensions of the board alone,
+ * used to select the heuristic of a solve by name. Pattern databases need
+ * their tables and are created by <b>PatternDatabase</b> instead.
+ */
+public enum HeuristicType {
+
+    /** See {@link ManhattanHeuristic}. */
+    MANHATTAN {
+        @Override
+        public Heuristic create(int rows, int columns) {
+            return new ManhattanHeuristic(rows, columns);
+        }
+    },
+
+    /** See {@link LinearConflictHeuristic}. */
+    LINEAR_CONFLICT {
+        @Override
+        public Heuristic create(int rows, int columns) {
+            return new LinearConflictHeuristic(rows, columns);
+        }
+    },
+
+    /** See {@link WalkingDistanceHeuristic}. */
+    WALKING_DISTANCE {
+        @Override
+        public Heuristic create(int rows, int columns) {
+            return new WalkingDistanceHeuristic(rows, columns);
+        }
+    };
+
+    /**
+     * Creates the heuristic for boards of the given dimensions. Heuristics
+     * keep no state between calls, so the result can be shared by solves.
+     * @param rows The number of rows of the board
+     * @param columns The number of columns of the board
+     * @return The heuristic
+     */
+    public abstract Heuristic create(int rows, int columns);
+}
@@ -0,0 +1,225 @@
+/**
+ * Solves a board using iterative deepening A* (IDA*), by default with the
+ * Manhattan heuristic. Instead of keeping every generated state like <b>Solver</b>, it
+ * runs successive depth-first searches bounded by the estimated length of the
+ * solution, on a single board that is modified in place. Memory use is
+ * proportional to the length of the solution, so many solves can run at once,
+ * and boards of any size can be solved.
+ */
+public class IDASolver implements PuzzleSolver {
+
+    /** Returned by the depth-first search once the goal has been reached. */
+    private static final int FOUND = -1;
+
+    /** Describes the geometry of the board. */
+    private final Grid geometry;
+
+    /** Estimates the number of moves left from the board being searched. */
+    private final Heuristic heuristic;
+
+    /** The board being searched, in row-major order, modified by each move. */
+    private final int[] tiles;
+
+    /** The row-major index of the empty cell of the board being searched. */
+    private int zero;
+
+    /** The directions of the moves that lead from the initial board to the current one. */
+    private int[] path;
+
+    /** The number of moves of the solution, once found. */
+    private int length;
+
+    /** The moves of a solution to an instance of the game. */
+    private MoveSequence solution;
+
+    /** The number of positions expanded by the search. */
+    private long expansions;
+
+    /** The number of positions generated by the search. */
+    private long generated;
+
+    /** The number of moves not made because they undo the previous one. */
+    private long duplicates;
+
+    /** What the search did, see {@link #metrics()}. */
+    private final SolverMetrics metrics = new SolverMetrics("IDA*");
+
+    /** The number of expansions between two checks of whether the search should stop. */
+    private static final int CHECK_INTERVAL = 1 << 14;
+
+    /** Tells when the search should stop. */
+    private final SearchContext context;
+
+    /**
+     * Constructor that finds a solution to the initial board.
+     * @param board the position that the board is currently in.
+     */
+    public IDASolver(RandomPermutation board) {
+        this(board, new ManhattanHeuristic(board.getRows(), board.getColumns()));
+    }
+
+    /**
+     * Constructor that finds a solution to the initial board using the given heuristic.
+     * @param board the position that the board is currently in.
+     * @param heuristic an admissible heuristic for boards of this size
+     */
+    public IDASolver(RandomPermutation board, Heuristic heuristic) {
+        this(board, heuristic, new SearchContext());
+    }
+
+    /**
+     * Constructor that finds a solution to the initial board, stopping when
+     * the context says so.
+     * @param board the position that the board is currently in.
+     * @param heuristic an admissible heuristic for boards of this size
+     * @param context the stop conditions of the search, prepared by {@link SearchContext#begin}
+     * @throws IllegalArgumentException if the board cannot be solved
+     * @throws java.util.concurrent.CancellationException if the search was cancelled or timed out
+     */
+    public IDASolver(RandomPermutation board, Heuristic heuristic, SearchContext context) {
+        Solvability.require(board);
+        MetricsSink sink = context.getSink();
+        if (sink != null) {
+            metrics.start();
+        }
+        this.heuristic = heuristic;
+        this.context = context;
+        geometry = new Grid(board.getRows(), board.getColumns());
+        tiles = new int[geometry.size()];
+        for (int index = 0; index < tiles.length; index++) {
+            tiles[index] = board.getType(index / board.getColumns(), index % board.getColumns());
+            if (tiles[index] == 0) {
+                zero = index;
+            }
+        }
+        int estimate = heuristic.estimate(tiles);
+        int state = heuristic.state(tiles);
+        if (sink != null) {
+            metrics.end(SolverMetrics.Phase.INITIALIZE);
+            metrics.start();
+        }
+
+        // deepen the bound to the smallest estimate that exceeded the previous one
+        int bound = estimate;
+        while (true) {
+            path = new int[bound + 1];
+            int result = search(0, bound, estimate, state, -1);
+            if (result == FOUND) {
+                break;
+            }
+            bound = result;
+        }
+        metrics.generated = generated;
+        metrics.expanded = expansions;
+        metrics.duplicates = duplicates;
+        metrics.evaluations = 1 + generated;
+        if (sink != null) {
+            metrics.end(SolverMetrics.Phase.SEARCH);
+            metrics.start();
+        }
+
+        solution = new MoveSequence(board, path, length);
+        if (sink != null) {
+            metrics.end(SolverMetrics.Phase.SOLUTION);
+            sink.record(metrics);
+        }
+    }
+
+    /**
+     * Depth-first search of the positions whose estimated cost does not exceed
+     * the bound.
+     * @param depth the number of moves made from the initial board
+     * @param bound the largest estimated cost explored in this iteration
+     * @param estimate the heuristic estimate of the current board
+     * @param state the heuristic state of the current board
+     * @param last the direction of the previous move, or -1 at the root
+     * @return FOUND if the goal was reached, otherwise the smallest estimated cost above the bound
+     */
+    private int search(int depth, int bound, int estimate, int state, int last) {
+        int cost = depth + estimate;
+        if (cost > bound) {
+            return cost;
+        }
+        if (estimate == 0 && solved()) {
+            length = depth;
+            return FOUND;
+        }
+
+        if (++expansions % CHECK_INTERVAL == 0) {
+            context.checkpoint(expansions, depth);
+        }
+        int minimum = Integer.MAX_VALUE;
+        for (int direction = 0; direction < Direction.COUNT; direction++) {
+            // don't undo the previous move
+            if (last >= 0 && direction == Direction.opposite(last)) {
+                duplicates++;
+                continue;
+            }
+            int target = geometry.target(zero, direction);
+            if (target < 0) {
+                continue;
+            }
+            generated++;
+
+            int origin = zero;
+            move(target);
+            int next = heuristic.update(estimate, state, tiles, target, origin);
+            path[depth] = direction;
+            int result = search(depth + 1, bound, next, heuristic.advance(state, tiles, target, origin), direction);
+            move(origin);
+
+            if (result == FOUND) {
+                return FOUND;
+            }
+            minimum = Math.min(minimum, result);
+        }
+        return minimum;
+    }
+
+    /**
+     * Slides the tile found at <b>target</b> into the empty cell. Moving back
+     * to the previous index of the empty cell undoes the move.
+     * @param target the row-major index of a cell adjacent to the empty cell
+     */
+    private void move(int target) {
+        tiles[zero] = tiles[target];
+        tiles[target] = 0;
+        zero = target;
+    }
+
+    /** @return true if the board being searched is in the winning position */
+    private boolean solved() {
+        for (int index = 0; index < tiles.length - 1; index++) {
+            if (tiles[index] != index + 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** @return The minimum number of moves to solve the initial board. */
+    @Override
+    public int moves() {
+        return length;
+    }
+
+    /** @return The moves of the solution. */
+    @Override
+    public MoveSequence path() {
+        return solution;
+    }
+
+    /** @return The number of positions whose neighbours were generated during the search. */
+    @Override
+    public long expansions() {
+        return expansions;
+    }
+
+    /**
+     * @return What the search did; IDA* has no open list and stores no
+     * position. The times are only measured when the context has a sink.
+     */
+    public SolverMetrics metrics() {
+        return metrics;
+    }
+}
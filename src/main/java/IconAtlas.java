@@ -0,0 +1,106 @@
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.RescaleOp;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+
+/**
+ * The images of the tiles at one size, shared by every cell that displays
+ * them. The images are read once from the classpath, so they are found both
+ * in the build directory and in the .jar file, then scaled to the size of
+ * the cells and darkened for selected cells. An atlas is never modified once
+ * built, and atlases are cached by size, so cells only ever switch between
+ * existing icons.
+ */
+public final class IconAtlas {
+
+    /** The size of the images as stored, in pixels. */
+    public static final int IMAGE_SIZE = 122;
+
+    /** The factor applied to the colours of the image of a selected cell. */
+    private static final float SELECTED_SHADE = 0.75f;
+
+    /** The atlases built so far, by size. */
+    private static final Map<Integer, IconAtlas> ATLASES = new ConcurrentHashMap<>();
+
+    /** The icon of each type of cell. */
+    private final ImageIcon[] icons;
+
+    /** The icon of each type of cell when the cell is selected. */
+    private final ImageIcon[] selectedIcons;
+
+    /**
+     * Builds an atlas by reading and scaling every image.
+     * @param size the width and height of the icons, in pixels
+     */
+    private IconAtlas(int size) {
+        icons = new ImageIcon[Cell.NUM_NUMBERS];
+        selectedIcons = new ImageIcon[Cell.NUM_NUMBERS];
+        RescaleOp shade = new RescaleOp(new float[] {SELECTED_SHADE, SELECTED_SHADE, SELECTED_SHADE, 1},
+                new float[4], null);
+        for (int type = 0; type < icons.length; type++) {
+            BufferedImage image = scale(read(type), size);
+            icons[type] = new ImageIcon(image);
+            selectedIcons[type] = new ImageIcon(shade.filter(image, null));
+        }
+    }
+
+    /**
+     * Returns the atlas of a size, building it the first time.
+     * @param size the width and height of the icons, in pixels
+     * @return Returns the shared atlas
+     * @throws UncheckedIOException if an image cannot be read
+     */
+    public static IconAtlas get(int size) {
+        return ATLASES.computeIfAbsent(size, IconAtlas::new);
+    }
+
+    /**
+     * Returns the icon of a cell.
+     * @param type the type of the cell, below <b>Cell.NUM_NUMBERS</b>
+     * @param selected true if the cell is selected
+     * @return Returns the shared icon
+     */
+    public ImageIcon icon(int type, boolean selected) {
+        return selected ? selectedIcons[type] : icons[type];
+    }
+
+    /**
+     * Reads the image of a type of cell from the classpath.
+     * @param type the type of the cell
+     * @return Returns the image
+     */
+    private static BufferedImage read(int type) {
+        String name = "img-0" + type + ".png";
+        URL url = IconAtlas.class.getResource("/" + name);
+        if (url == null) {
+            throw new UncheckedIOException(new IOException("Missing image " + name + " on the classpath"));
+        }
+        try {
+            return ImageIO.read(url);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Draws an image at the given size, with an alpha channel.
+     * @param image the image as read
+     * @param size the width and height of the result
+     * @return Returns a new image
+     */
+    private static BufferedImage scale(BufferedImage image, int size) {
+        BufferedImage scaled = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(image, 0, 0, size, size, null);
+        graphics.dispose();
+        return scaled;
+    }
+}
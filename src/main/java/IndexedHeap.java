@@ -0,0 +1,139 @@
+import java.util.Arrays;
+
+/**
+ * An open list that is a binary min-heap of node indices ordered by
+ * estimated cost, ties going to the node with the most moves, that also
+ * knows where each node is so that the cost of a node can be lowered in
+ * place when a shorter path to it is found (decrease-key), instead of adding
+ * a second entry.
+ *
+ * Each entry is a single <b>long</b>, the order of the node in its high half
+ * and the node in its low half, so comparing two entries is comparing two
+ * numbers. The arrays are kept by {@link #clear()}.
+ */
+public class IndexedHeap implements OpenList {
+
+    /** Marks a node that is not in the heap. */
+    private static final int ABSENT = -1;
+
+    /** The largest number of moves the order can hold. */
+    private static final int MAX_MOVES = 0xFFFF;
+
+    /** The entries, in heap order. */
+    private long[] heap = new long[1 << 10];
+
+    /** The index in the heap of each node, ABSENT if it is not in the heap. */
+    private int[] slots = new int[0];
+
+    /** The number of entries. */
+    private int size;
+
+    @Override
+    public void push(int node, int cost, int moves) {
+        if (node >= slots.length) {
+            int length = Math.max(node + 1, slots.length * 2);
+            int old = slots.length;
+            slots = Arrays.copyOf(slots, length);
+            Arrays.fill(slots, old, length, ABSENT);
+        }
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        siftUp(size++, entry(node, cost, moves));
+    }
+
+    @Override
+    public void decrease(int node, int cost, int moves) {
+        siftUp(slots[node], entry(node, cost, moves));
+    }
+
+    @Override
+    public int pop() {
+        int node = (int) heap[0];
+        slots[node] = ABSENT;
+        long last = heap[--size];
+        if (size > 0) {
+            siftDown(0, last);
+        }
+        return node;
+    }
+
+    @Override
+    public boolean contains(int node) {
+        return node < slots.length && slots[node] != ABSENT;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            slots[(int) heap[i]] = ABSENT;
+        }
+        size = 0;
+    }
+
+    /**
+     * Builds the entry of a node.
+     * @param node the index of the node
+     * @param cost its estimated cost
+     * @param moves the moves to reach it
+     * @return Returns the entry, smaller for a lower cost, then for more moves
+     */
+    private static long entry(int node, int cost, int moves) {
+        long order = ((long) cost << 16) | (MAX_MOVES - Math.min(moves, MAX_MOVES));
+        return order << 32 | node;
+    }
+
+    /**
+     * Moves an entry up from a slot until its parent is smaller.
+     * @param slot the slot the entry starts from
+     * @param entry the entry
+     */
+    private void siftUp(int slot, long entry) {
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            long above = heap[parent];
+            if (above <= entry) {
+                break;
+            }
+            heap[slot] = above;
+            slots[(int) above] = slot;
+            slot = parent;
+        }
+        heap[slot] = entry;
+        slots[(int) entry] = slot;
+    }
+
+    /**
+     * Moves an entry down from a slot until its children are larger.
+     * @param slot the slot the entry starts from
+     * @param entry the entry
+     */
+    private void siftDown(int slot, long entry) {
+        int half = size >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            long below = heap[child];
+            if (child + 1 < size && heap[child + 1] < below) {
+                below = heap[++child];
+            }
+            if (entry <= below) {
+                break;
+            }
+            heap[slot] = below;
+            slots[(int) below] = slot;
+            slot = child;
+        }
+        heap[slot] = entry;
+        slots[(int) entry] = slot;
+    }
+}
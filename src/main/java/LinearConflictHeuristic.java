@@ -0,0 +1,183 @@
+/**
+ * The Manhattan distance plus two moves for every tile that has to leave its
+ * row or column to let another tile of the same line go past it. For each
+ * line, the number of tiles to remove is the number of tiles in their goal
+ * line minus the longest sequence of them that is already in order.
+ *
+ * The number of tiles to remove is precomputed for every possible content of
+ * a line, so a line is evaluated in time proportional to its length. A move
+ * along a row does not change the order of the tiles of that row, so only the
+ * two columns the tile moves between are evaluated again, and vice versa.
+ */
+public class LinearConflictHeuristic implements Heuristic {
+
+    /** The number of rows of the board. */
+    private final int rows;
+
+    /** The number of columns of the board. */
+    private final int columns;
+
+    /** Computes the Manhattan part of the estimate. */
+    private final ManhattanHeuristic manhattan;
+
+    /**
+     * The number of tiles to remove from a row, indexed by the code of the
+     * row, see {@link #rowCode(int[], int)}.
+     */
+    private final byte[] rowRemovals;
+
+    /** The number of tiles to remove from a column, indexed by the code of the column. */
+    private final byte[] columnRemovals;
+
+    /** The weight of the digit of each cell in the code of a row. */
+    private final int[] rowWeights;
+
+    /** The weight of the digit of each cell in the code of a column. */
+    private final int[] columnWeights;
+
+    /**
+     * Constructs the heuristic for boards of the given dimensions.
+     * @param rows The number of rows of the board
+     * @param columns The number of columns of the board
+     */
+    public LinearConflictHeuristic(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        manhattan = new ManhattanHeuristic(rows, columns);
+        rowRemovals = removals(columns);
+        columnRemovals = removals(rows);
+        rowWeights = weights(columns);
+        columnWeights = weights(rows);
+    }
+
+    @Override
+    public int estimate(int[] tiles) {
+        int conflicts = 0;
+        for (int row = 0; row < rows; row++) {
+            conflicts += rowRemovals[rowCode(tiles, row)];
+        }
+        for (int column = 0; column < columns; column++) {
+            conflicts += columnRemovals[columnCode(tiles, column)];
+        }
+        return manhattan.estimate(tiles) + 2 * conflicts;
+    }
+
+    @Override
+    public int update(int estimate, int[] tiles, int from, int to) {
+        int result = manhattan.update(estimate, tiles, from, to);
+        int tile = tiles[to] - 1;
+        int change;
+        // the codes before the move only differ by the digit of the moved tile
+        if (from / columns == to / columns) {
+            // the tile moved along its row, it left one column for another
+            int left = from % columns;
+            int right = to % columns;
+            int leftCode = columnCode(tiles, left);
+            int rightCode = columnCode(tiles, right);
+            int leftDigit = tile % columns == left ? tile / columns + 1 : 0;
+            int rightDigit = tile % columns == right ? tile / columns + 1 : 0;
+            change = columnRemovals[leftCode] + columnRemovals[rightCode]
+                    - columnRemovals[leftCode + leftDigit * columnWeights[from / columns]]
+                    - columnRemovals[rightCode - rightDigit * columnWeights[to / columns]];
+        } else {
+            int top = from / columns;
+            int bottom = to / columns;
+            int topCode = rowCode(tiles, top);
+            int bottomCode = rowCode(tiles, bottom);
+            int topDigit = tile / columns == top ? tile % columns + 1 : 0;
+            int bottomDigit = tile / columns == bottom ? tile % columns + 1 : 0;
+            change = rowRemovals[topCode] + rowRemovals[bottomCode]
+                    - rowRemovals[topCode + topDigit * rowWeights[from % columns]]
+                    - rowRemovals[bottomCode - bottomDigit * rowWeights[to % columns]];
+        }
+        return result + 2 * change;
+    }
+
+    /**
+     * Encodes the tiles of a row that belong to it, as a number in base
+     * columns + 1: the digit of a cell is the goal column of its tile plus
+     * one, or 0 if the tile belongs to another row. The first cell is the
+     * least significant digit.
+     * @param tiles the tiles in row-major order
+     * @param row the row to encode
+     * @return the code of the row
+     */
+    private int rowCode(int[] tiles, int row) {
+        int code = 0;
+        for (int column = columns - 1; column >= 0; column--) {
+            int tile = tiles[row * columns + column] - 1;
+            int digit = tile >= 0 && tile / columns == row ? tile % columns + 1 : 0;
+            code = code * (columns + 1) + digit;
+        }
+        return code;
+    }
+
+    /**
+     * Encodes the tiles of a column that belong to it, as a number in base
+     * rows + 1, see {@link #rowCode(int[], int)}.
+     * @param tiles the tiles in row-major order
+     * @param column the column to encode
+     * @return the code of the column
+     */
+    private int columnCode(int[] tiles, int column) {
+        int code = 0;
+        for (int row = rows - 1; row >= 0; row--) {
+            int tile = tiles[row * columns + column] - 1;
+            int digit = tile >= 0 && tile % columns == column ? tile / columns + 1 : 0;
+            code = code * (rows + 1) + digit;
+        }
+        return code;
+    }
+
+    /**
+     * Computes the weight of each digit of the code of a line.
+     * @param length the number of cells of the line
+     * @return the powers of length + 1
+     */
+    private static int[] weights(int length) {
+        int[] weights = new int[length];
+        weights[0] = 1;
+        for (int i = 1; i < length; i++) {
+            weights[i] = weights[i - 1] * (length + 1);
+        }
+        return weights;
+    }
+
+    /**
+     * Computes the number of tiles to remove from a line for every code of a
+     * line of the given length.
+     * @param length the number of cells of the line
+     * @return the number of removals, indexed by code
+     */
+    private static byte[] removals(int length) {
+        int codes = 1;
+        for (int i = 0; i < length; i++) {
+            codes *= length + 1;
+        }
+        byte[] removals = new byte[codes];
+        int[] sequence = new int[length];
+        int[] longest = new int[length];
+        for (int code = 0; code < codes; code++) {
+            // the goal positions of the tiles of the line, in the order they appear
+            int count = 0;
+            for (int rest = code; rest > 0; rest /= length + 1) {
+                if (rest % (length + 1) != 0) {
+                    sequence[count++] = rest % (length + 1);
+                }
+            }
+            // longest increasing subsequence, the tiles that can stay
+            int best = 0;
+            for (int i = 0; i < count; i++) {
+                longest[i] = 1;
+                for (int j = 0; j < i; j++) {
+                    if (sequence[j] < sequence[i]) {
+                        longest[i] = Math.max(longest[i], longest[j] + 1);
+                    }
+                }
+                best = Math.max(best, longest[i]);
+            }
+            removals[code] = (byte) (count - best);
+        }
+        return removals;
+    }
+}
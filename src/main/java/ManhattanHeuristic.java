@@ -0,0 +1,56 @@
+/**
+ * The sum of the Manhattan distances between the tiles and their goal cells.
+ * A single move changes it by exactly one, which makes updates a table lookup.
+ */
+public class ManhattanHeuristic implements Heuristic {
+
+    /** The number of cells of the board. */
+    private final int size;
+
+    /**
+     * The Manhattan distance of every tile from every cell to its goal cell,
+     * indexed by tile * size + cell. The row of the empty cell is all zeros.
+     */
+    private final int[] distances;
+
+    /**
+     * Constructs the heuristic for boards of the given dimensions.
+     * @param rows The number of rows of the board
+     * @param columns The number of columns of the board
+     */
+    public ManhattanHeuristic(int rows, int columns) {
+        size = rows * columns;
+        distances = new int[size * size];
+        for (int tile = 1; tile < size; tile++) {
+            for (int index = 0; index < size; index++) {
+                distances[tile * size + index] = Math.abs(index / columns - (tile - 1) / columns)
+                        + Math.abs(index % columns - (tile - 1) % columns);
+            }
+        }
+    }
+
+    /**
+     * Returns the Manhattan distance of a tile to its goal cell.
+     * @param tile The tile, 0 for the empty cell which is never counted
+     * @param index The row-major index of the cell the tile is in
+     * @return The number of moves the tile is away from its goal cell
+     */
+    public int distance(int tile, int index) {
+        return distances[tile * size + index];
+    }
+
+    @Override
+    public int estimate(int[] tiles) {
+        int manhattan = 0;
+        for (int index = 0; index < size; index++) {
+            manhattan += distances[tiles[index] * size + index];
+        }
+        return manhattan;
+    }
+
+    @Override
+    public int update(int estimate, int[] tiles, int from, int to) {
+        int base = tiles[to] * size;
+        return estimate + distances[base + to] - distances[base + from];
+    }
+}
@@ -0,0 +1,69 @@
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregates the metrics of many solves in named meters, in the manner of
+ * Micrometer: a counter per solver and count, e.g. <b>A*.expanded</b>, a
+ * maximum per solver for the open list, <b>A*.maxOpen</b>, and a total time
+ * per solver, phase and clock, e.g. <b>A*.search.cpu</b>, in nanoseconds.
+ * The number of solves is counted in <b>A*.solves</b>.
+ */
+public class MetricsRegistry implements MetricsSink {
+
+    /** The counters and total times, by name. */
+    private final Map<String, LongAdder> totals = new ConcurrentHashMap<>();
+
+    /** The maximums, by name. */
+    private final Map<String, LongAccumulator> maximums = new ConcurrentHashMap<>();
+
+    @Override
+    public void record(SolverMetrics metrics) {
+        String prefix = metrics.getSolver() + ".";
+        add(prefix + "solves", 1);
+        add(prefix + "generated", metrics.getGenerated());
+        add(prefix + "expanded", metrics.getExpanded());
+        add(prefix + "duplicates", metrics.getDuplicates());
+        add(prefix + "evaluations", metrics.getEvaluations());
+        maximums.computeIfAbsent(prefix + "maxOpen", name -> new LongAccumulator(Math::max, 0))
+                .accumulate(metrics.getMaxOpen());
+        for (SolverMetrics.Phase phase : SolverMetrics.Phase.values()) {
+            String name = prefix + phase.name().toLowerCase();
+            add(name + ".wall", metrics.getWallTime(phase));
+            add(name + ".cpu", metrics.getCpuTime(phase));
+        }
+    }
+
+    /**
+     * Adds to a counter.
+     * @param name the name of the counter
+     * @param amount the amount to add
+     */
+    private void add(String name, long amount) {
+        totals.computeIfAbsent(name, key -> new LongAdder()).add(amount);
+    }
+
+    /**
+     * Returns the value of a meter.
+     * @param name the name of the meter
+     * @return Returns its value, 0 if nothing was recorded under this name
+     */
+    public long get(String name) {
+        LongAdder total = totals.get(name);
+        if (total != null) {
+            return total.sum();
+        }
+        LongAccumulator maximum = maximums.get(name);
+        return maximum != null ? maximum.get() : 0;
+    }
+
+    /** @return Returns the value of every meter, by name, in alphabetical order */
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        totals.forEach((name, total) -> snapshot.put(name, total.sum()));
+        maximums.forEach((name, maximum) -> snapshot.put(name, maximum.get()));
+        return snapshot;
+    }
+}
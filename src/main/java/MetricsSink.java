@@ -0,0 +1,13 @@
+/**
+ * Receives the metrics of every solve run with it, see
+ * {@link SearchContext#setSink(MetricsSink)}. Sinks may be called by several
+ * threads at once.
+ */
+public interface MetricsSink {
+
+    /**
+     * Records the metrics of a finished solve.
+     * @param metrics the metrics, including the times of the phases
+     */
+    void record(SolverMetrics metrics);
+}
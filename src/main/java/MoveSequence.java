@@ -0,0 +1,212 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Stack;
+
+/**
+ * A solution stored as the board it starts from and the directions the
+ * empty cell moves in, packed 2 bits per move, four to a byte, the first
+ * move in the lowest bits. A solution of 80 moves takes 20 bytes besides its
+ * initial board, where a stack of positions holds a board per move.
+ *
+ * The positions the board goes through are only replayed when they are
+ * iterated, each one on a new board. Clients that only need the moves, such
+ * as files and sockets, read them with {@link #move(int)} or
+ * {@link #directions()}. A sequence is immutable.
+ */
+public final class MoveSequence implements Iterable<RandomPermutation> {
+
+    /** The number of moves packed in a byte. */
+    private static final int MOVES_PER_BYTE = 4;
+
+    /** The board before the first move. */
+    private final RandomPermutation start;
+
+    /** The packed moves. */
+    private final byte[] moves;
+
+    /** The number of moves. */
+    private final int length;
+
+    /**
+     * Constructs a sequence of moves.
+     * @param start the board before the first move, copied
+     * @param directions the direction of each move, from the first one
+     * @param length the number of moves
+     */
+    public MoveSequence(RandomPermutation start, int[] directions, int length) {
+        this(start.clone(), new byte[bytes(length)], length);
+        for (int i = 0; i < length; i++) {
+            moves[i / MOVES_PER_BYTE] |= (byte) (directions[i] << (i % MOVES_PER_BYTE * 2));
+        }
+    }
+
+    /**
+     * Constructs a sequence over moves already packed, without copying them.
+     * @param start the board before the first move, not copied
+     * @param moves the packed moves
+     * @param length the number of moves
+     */
+    MoveSequence(RandomPermutation start, byte[] moves, int length) {
+        this.start = start;
+        this.moves = moves;
+        this.length = length;
+    }
+
+    /**
+     * Converts a stack of positions.
+     * @param start the board before the first move, copied
+     * @param solution the positions of the solution, the first one on top
+     * @return Returns the moves between the positions
+     */
+    public static MoveSequence of(RandomPermutation start, Stack<RandomPermutation> solution) {
+        int length = solution.size();
+        int[] directions = new int[length];
+        RandomPermutation previous = start;
+        for (int i = 0; i < length; i++) {
+            RandomPermutation next = solution.get(length - 1 - i);
+            directions[i] = Direction.between(previous, next);
+            previous = next;
+        }
+        return new MoveSequence(start, directions, length);
+    }
+
+    /**
+     * Converts a path of packed positions, each one move from the previous.
+     * @param packed the encoding of the positions
+     * @param path the positions, the initial board first
+     * @return Returns the moves between the positions
+     */
+    static MoveSequence of(PackedBoard packed, long[] path) {
+        int[] directions = new int[path.length - 1];
+        int zero = packed.zeroIndex(path[0]);
+        for (int i = 1; i < path.length; i++) {
+            int next = packed.zeroIndex(path[i]);
+            directions[i - 1] = packed.direction(zero, next);
+            zero = next;
+        }
+        return new MoveSequence(packed.decode(path[0]), directions, directions.length);
+    }
+
+    /**
+     * Returns the number of bytes holding packed moves.
+     * @param length the number of moves
+     * @return Returns the number of bytes, the last one possibly partly used
+     */
+    static int bytes(int length) {
+        return (length + MOVES_PER_BYTE - 1) / MOVES_PER_BYTE;
+    }
+
+    /** @return Returns the number of moves */
+    public int length() {
+        return length;
+    }
+
+    /** @return Returns a copy of the board before the first move */
+    public RandomPermutation start() {
+        return start.clone();
+    }
+
+    /**
+     * Returns a move.
+     * @param index the index of the move, 0 for the first one
+     * @return Returns the direction the empty cell moves in
+     */
+    public int move(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Move " + index + " of " + length);
+        }
+        return (moves[index / MOVES_PER_BYTE] >>> (index % MOVES_PER_BYTE * 2)) & 3;
+    }
+
+    /**
+     * Returns the packed moves, shared with the sequence.
+     * @return Returns the moves, 2 bits each, of which the first {@link #bytes(int)} bytes are used
+     */
+    byte[] packedMoves() {
+        return moves;
+    }
+
+    /** @return Returns the directions of the moves, from the first one */
+    public PrimitiveIterator.OfInt directions() {
+        return new PrimitiveIterator.OfInt() {
+
+            /** The index of the next move. */
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < length;
+            }
+
+            @Override
+            public int nextInt() {
+                if (index == length) {
+                    throw new NoSuchElementException();
+                }
+                return move(index++);
+            }
+        };
+    }
+
+    /**
+     * Replays the moves, returning the position after each one, on a new
+     * board each time. The initial board is not returned.
+     * @return Returns the positions, from the one after the first move
+     */
+    @Override
+    public Iterator<RandomPermutation> iterator() {
+        return new Iterator<>() {
+
+            /** The index of the next move. */
+            private int index;
+
+            /** The position before the next move. */
+            private RandomPermutation position = start;
+
+            @Override
+            public boolean hasNext() {
+                return index < length;
+            }
+
+            @Override
+            public RandomPermutation next() {
+                if (index == length) {
+                    throw new NoSuchElementException();
+                }
+                position = position.clone();
+                position.move(move(index++));
+                return position;
+            }
+        };
+    }
+
+    /** @return Returns the positions of the solution on a stack, the first one on top */
+    public Stack<RandomPermutation> toStack() {
+        RandomPermutation[] positions = new RandomPermutation[length];
+        int i = 0;
+        for (RandomPermutation position : this) {
+            positions[i++] = position;
+        }
+        Stack<RandomPermutation> solution = new Stack<>();
+        for (i = length - 1; i >= 0; i--) {
+            solution.push(positions[i]);
+        }
+        return solution;
+    }
+
+    /** @return Returns the letter of each move, U, D, L or R, e.g. <code>RRD</code> */
+    public String letters() {
+        StringBuilder letters = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            letters.append(Direction.letter(move(i)));
+        }
+        return letters.toString();
+    }
+
+    /** @return Returns the letters of the moves, see {@link #letters()} */
+    @Override
+    public String toString() {
+        return letters();
+    }
+}
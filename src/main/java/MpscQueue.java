@@ -0,0 +1,69 @@
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A lock-free unbounded queue for many producers and a single consumer, after
+ * Dmitry Vyukov's intrusive MPSC queue. Producers only swap the tail with one
+ * atomic operation; the consumer owns the head and never synchronizes with
+ * other consumers.
+ *
+ * A producer that has swapped the tail but not yet linked its node makes the
+ * queue look empty to the consumer for a moment, so {@link #poll()} may
+ * return null while an element is being added. Callers that need to know
+ * whether elements are in flight must count them separately.
+ *
+ * @param <T> the type of the elements
+ */
+public class MpscQueue<T> {
+
+    /** A link of the queue. */
+    private static final class Node<T> {
+
+        /** The element, null once consumed. */
+        T value;
+
+        /** The next link, set by the producer that added it. */
+        volatile Node<T> next;
+
+        Node(T value) {
+            this.value = value;
+        }
+    }
+
+    /** The last node added, shared by the producers. */
+    private final AtomicReference<Node<T>> tail;
+
+    /** The node before the first element, only used by the consumer. */
+    private Node<T> head;
+
+    /** Constructs an empty queue. */
+    public MpscQueue() {
+        Node<T> stub = new Node<>(null);
+        head = stub;
+        tail = new AtomicReference<>(stub);
+    }
+
+    /**
+     * Adds an element at the end of the queue. May be called by any thread.
+     * @param value the element, not null
+     */
+    public void offer(T value) {
+        Node<T> node = new Node<>(value);
+        Node<T> previous = tail.getAndSet(node);
+        previous.next = node;
+    }
+
+    /**
+     * Removes the element at the head of the queue. Must only be called by the consumer thread.
+     * @return the element, or null if there is none
+     */
+    public T poll() {
+        Node<T> next = head.next;
+        if (next == null) {
+            return null;
+        }
+        head = next;
+        T value = next.value;
+        next.value = null;
+        return value;
+    }
+}
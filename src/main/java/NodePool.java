@@ -0,0 +1,154 @@
+import java.util.Arrays;
+
+/**
+ * The nodes of a search, stored column-wise in primitive arrays instead of
+ * one object per node: a node is an index into the arrays of its packed
+ * position, the index of its empty cell, its number of moves, its heuristic
+ * estimate and state and the index of its parent. The arrays grow as needed and are
+ * kept by {@link #clear()}, so a pool reused from one search to the next
+ * stops allocating once it has grown to the size of the largest search.
+ */
+public class NodePool {
+
+    /** The initial number of nodes. */
+    private static final int DEFAULT_CAPACITY = 1 << 10;
+
+    /** The packed position of each node. */
+    private long[] positions;
+
+    /** The row-major index of the empty cell of each node. */
+    private byte[] zeros;
+
+    /** The number of moves to reach each node. */
+    private int[] moves;
+
+    /** The heuristic estimate of each node. */
+    private int[] estimates;
+
+    /** The heuristic state of each node, see {@link Heuristic#state(int[])}. */
+    private int[] states;
+
+    /** The index of the node each node was reached from, -1 for the root. */
+    private int[] parents;
+
+    /** The number of nodes. */
+    private int size;
+
+    /** Constructs an empty pool. */
+    public NodePool() {
+        positions = new long[DEFAULT_CAPACITY];
+        zeros = new byte[DEFAULT_CAPACITY];
+        moves = new int[DEFAULT_CAPACITY];
+        estimates = new int[DEFAULT_CAPACITY];
+        states = new int[DEFAULT_CAPACITY];
+        parents = new int[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * Adds a node.
+     * @param position the packed position
+     * @param zero the index of its empty cell
+     * @param moves the number of moves to reach it
+     * @param estimate its heuristic estimate
+     * @param state its heuristic state
+     * @param parent the node it was reached from, -1 for the root
+     * @return Returns the index of the new node
+     */
+    public int add(long position, int zero, int moves, int estimate, int state, int parent) {
+        if (size == positions.length) {
+            grow();
+        }
+        positions[size] = position;
+        zeros[size] = (byte) zero;
+        this.moves[size] = moves;
+        estimates[size] = estimate;
+        states[size] = state;
+        parents[size] = parent;
+        return size++;
+    }
+
+    /**
+     * Records a shorter path to a node.
+     * @param node the index of the node
+     * @param moves the new number of moves to reach it
+     * @param parent the node it is now reached from
+     */
+    public void relink(int node, int moves, int parent) {
+        this.moves[node] = moves;
+        parents[node] = parent;
+    }
+
+    /**
+     * @param node the index of a node
+     * @return Returns its packed position
+     */
+    public long position(int node) {
+        return positions[node];
+    }
+
+    /**
+     * @param node the index of a node
+     * @return Returns the index of its empty cell
+     */
+    public int zero(int node) {
+        return zeros[node];
+    }
+
+    /**
+     * @param node the index of a node
+     * @return Returns the number of moves to reach it
+     */
+    public int moves(int node) {
+        return moves[node];
+    }
+
+    /**
+     * @param node the index of a node
+     * @return Returns its heuristic estimate
+     */
+    public int estimate(int node) {
+        return estimates[node];
+    }
+
+    /**
+     * @param node the index of a node
+     * @return Returns its heuristic state
+     */
+    public int state(int node) {
+        return states[node];
+    }
+
+    /**
+     * @param node the index of a node
+     * @return Returns the node it was reached from, -1 for the root
+     */
+    public int parent(int node) {
+        return parents[node];
+    }
+
+    /** @return Returns the number of nodes */
+    public int size() {
+        return size;
+    }
+
+    /** @return Returns the number of nodes the pool holds without growing */
+    public int capacity() {
+        return positions.length;
+    }
+
+    /** Removes every node, keeping the arrays. */
+    public void clear() {
+        size = 0;
+    }
+
+    /** Doubles the capacity of the arrays. */
+    private void grow() {
+        int capacity = positions.length * 2;
+        positions = Arrays.copyOf(positions, capacity);
+        zeros = Arrays.copyOf(zeros, capacity);
+        moves = Arrays.copyOf(moves, capacity);
+        estimates = Arrays.copyOf(estimates, capacity);
+        states = Arrays.copyOf(states, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+    }
+}
@@ -0,0 +1,246 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A hash table from packed board positions to an <b>int</b> kept outside the
+ * Java heap, for searches whose reached positions would otherwise fill the
+ * heap and make the collector pause for long. Like <b>StateTable</b> it uses
+ * open addressing and linear probing, but its keys and values are stored in
+ * direct buffers, either in memory or in a memory-mapped file, which the
+ * collector never scans or copies.
+ *
+ * The capacity is fixed when the table is made. The table holds up to three
+ * quarters of its capacity, past which {@link #put(long, int)} throws an
+ * <b>IllegalStateException</b> rather than slowing down or growing. A buffer
+ * holds at most 2 GB, so the slots are split in segments of their own
+ * buffers.
+ *
+ * The memory is released once the table is collected; {@link #close()} only
+ * closes the mapped file, if any.
+ */
+public class OffHeapStateTable implements StateMap, AutoCloseable {
+
+    /** Marks a free slot in the key buffers. */
+    private static final long FREE = 0L;
+
+    /** Multiplier used to spread the bits of a key, see Knuth's multiplicative hashing. */
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    /** The base two logarithm of the number of slots of a segment. */
+    private static final int SEGMENT_BITS = 27;
+
+    /** Selects the index of a slot within its segment. */
+    private static final int SEGMENT_MASK = (1 << SEGMENT_BITS) - 1;
+
+    /** The largest number of slots of a table. */
+    public static final int MAX_CAPACITY = 1 << 30;
+
+    /** The positions of each segment, 8 bytes per slot, FREE for an empty slot. */
+    private final ByteBuffer[] keys;
+
+    /** The values of each segment, 4 bytes per slot. */
+    private final ByteBuffer[] values;
+
+    /** The mapped file, or null if the table is in memory. */
+    private final FileChannel channel;
+
+    /** The number of slots, a power of two. */
+    private final int capacity;
+
+    /** The number of positions past which the table is full. */
+    private final int limit;
+
+    /** Number of bits to shift a hash right by to get a slot index. */
+    private final int shift;
+
+    /** The number of positions in the table. */
+    private int size;
+
+    /**
+     * Constructs an empty table over the given buffers.
+     * @param keys the zeroed key buffers
+     * @param values the value buffers
+     * @param channel the mapped file, or null
+     * @param capacity the number of slots
+     */
+    private OffHeapStateTable(ByteBuffer[] keys, ByteBuffer[] values, FileChannel channel, int capacity) {
+        this.keys = keys;
+        this.values = values;
+        this.channel = channel;
+        this.capacity = capacity;
+        limit = capacity - (capacity >>> 2);
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    /**
+     * Makes an empty table in direct memory.
+     * @param expected The number of positions expected to be stored
+     * @return Returns the table
+     * @throws IllegalArgumentException if the table would need more than MAX_CAPACITY slots
+     */
+    public static OffHeapStateTable allocate(int expected) {
+        int capacity = capacityFor(expected);
+        int segments = segments(capacity);
+        ByteBuffer[] keys = new ByteBuffer[segments];
+        ByteBuffer[] values = new ByteBuffer[segments];
+        for (int i = 0; i < segments; i++) {
+            int slots = Math.min(capacity, 1 << SEGMENT_BITS);
+            keys[i] = ByteBuffer.allocateDirect(slots * Long.BYTES).order(ByteOrder.nativeOrder());
+            values[i] = ByteBuffer.allocateDirect(slots * Integer.BYTES).order(ByteOrder.nativeOrder());
+        }
+        return new OffHeapStateTable(keys, values, null, capacity);
+    }
+
+    /**
+     * Makes an empty table in a memory-mapped file, which is created or
+     * truncated. The operating system pages the table in and out of memory,
+     * so it may be larger than the memory available.
+     * @param file The file holding the table
+     * @param expected The number of positions expected to be stored
+     * @return Returns the table
+     * @throws IOException if the file cannot be created or mapped
+     * @throws IllegalArgumentException if the table would need more than MAX_CAPACITY slots
+     */
+    public static OffHeapStateTable map(Path file, int expected) throws IOException {
+        int capacity = capacityFor(expected);
+        int segments = segments(capacity);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            ByteBuffer[] keys = new ByteBuffer[segments];
+            ByteBuffer[] values = new ByteBuffer[segments];
+            int slots = Math.min(capacity, 1 << SEGMENT_BITS);
+            // all the keys first, then all the values; the file grows with zeros, so every slot starts free
+            long valueStart = (long) capacity * Long.BYTES;
+            for (int i = 0; i < segments; i++) {
+                keys[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i * slots * Long.BYTES,
+                        (long) slots * Long.BYTES).order(ByteOrder.nativeOrder());
+                values[i] = channel.map(FileChannel.MapMode.READ_WRITE, valueStart + (long) i * slots * Integer.BYTES,
+                        (long) slots * Integer.BYTES).order(ByteOrder.nativeOrder());
+            }
+            return new OffHeapStateTable(keys, values, channel, capacity);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int get(long key) {
+        int mask = capacity - 1;
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long current = key(slot);
+            if (current == key) {
+                return values[slot >>> SEGMENT_BITS].getInt((slot & SEGMENT_MASK) * Integer.BYTES);
+            }
+            if (current == FREE) {
+                return MISSING;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws IllegalStateException if the position is new and the table is full
+     */
+    @Override
+    public void put(long key, int value) {
+        int mask = capacity - 1;
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long current = key(slot);
+            if (current == FREE) {
+                if (size == limit) {
+                    throw new IllegalStateException("The table is full: " + size + " positions in "
+                            + capacity + " slots");
+                }
+                keys[slot >>> SEGMENT_BITS].putLong((slot & SEGMENT_MASK) * Long.BYTES, key);
+                size++;
+            } else if (current != key) {
+                continue;
+            }
+            values[slot >>> SEGMENT_BITS].putInt((slot & SEGMENT_MASK) * Integer.BYTES, value);
+            return;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    /** @return Returns the number of positions the table holds before it is full */
+    public int limit() {
+        return limit;
+    }
+
+    @Override
+    public void clear() {
+        for (ByteBuffer segment : keys) {
+            for (int i = 0; i < segment.capacity(); i += Long.BYTES) {
+                segment.putLong(i, FREE);
+            }
+        }
+        size = 0;
+    }
+
+    /**
+     * Closes the mapped file, if any. The table must not be used afterwards.
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Reads the key of a slot.
+     * @param slot The index of the slot
+     * @return Returns the packed position, or FREE
+     */
+    private long key(int slot) {
+        return keys[slot >>> SEGMENT_BITS].getLong((slot & SEGMENT_MASK) * Long.BYTES);
+    }
+
+    /**
+     * Computes the home slot of a key.
+     * @param key The packed position
+     * @return The index of the first slot to probe
+     */
+    private int slot(long key) {
+        return (int) ((key * GOLDEN) >>> shift);
+    }
+
+    /**
+     * Computes the number of slots needed to hold a number of positions.
+     * @param expected The number of positions
+     * @return Returns the smallest power of two whose three quarters are at least expected
+     */
+    private static int capacityFor(int expected) {
+        // at least four slots, so that a full table still has a free slot to end a probe
+        long needed = Math.max(4, (long) Math.max(expected, 1) * 4 / 3 + 1);
+        if (needed > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Too many positions for a table: " + expected);
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    /**
+     * Computes the number of segments of a table.
+     * @param capacity The number of slots
+     * @return Returns the number of buffers of keys, and of values
+     */
+    private static int segments(int capacity) {
+        return Math.max(1, capacity >>> SEGMENT_BITS);
+    }
+}
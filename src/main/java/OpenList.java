@@ -0,0 +1,45 @@
+/**
+ * The open list of a search: the nodes generated but not expanded yet,
+ * identified by their index in a <b>NodePool</b>, removed by lowest
+ * estimated cost. Implementations differ in how they break ties and in the
+ * cost of their operations, see <b>IndexedHeap</b> and <b>BucketQueue</b>.
+ */
+public interface OpenList {
+
+    /**
+     * Adds a node that is not in the list.
+     * @param node the index of the node
+     * @param cost its estimated cost, the moves to reach it plus its estimate
+     * @param moves the moves to reach it
+     */
+    void push(int node, int cost, int moves);
+
+    /**
+     * Lowers the estimated cost of a node in the list.
+     * @param node the index of the node
+     * @param cost its new estimated cost, not more than before
+     * @param moves the moves to reach it
+     */
+    void decrease(int node, int cost, int moves);
+
+    /**
+     * Removes a node of lowest estimated cost.
+     * @return Returns the index of the node
+     */
+    int pop();
+
+    /**
+     * @param node the index of a node
+     * @return Returns true if the node is in the list
+     */
+    boolean contains(int node);
+
+    /** @return Returns the number of nodes in the list */
+    int size();
+
+    /** @return Returns true if the list has no node */
+    boolean isEmpty();
+
+    /** Removes every node, keeping the memory of the list. */
+    void clear();
+}
@@ -0,0 +1,138 @@
+/**
+ * A compact encoding of board positions used by the search. Every cell is
+ * stored as a 4-bit nibble of a <b>long</b> in row-major order, so a position
+ * is a single primitive: no nested arrays are allocated per node and a move is
+ * a couple of shifts. The index of the empty cell is not stored in the
+ * <b>long</b>; the search caches it next to the position instead.
+ *
+ * An instance of this class only describes the geometry of the board, the
+ * positions themselves are plain <b>long</b> values, so boards of up to
+ * <b>MAX_CELLS</b> cells can be encoded. Conversion to and from
+ * <b>RandomPermutation</b> only happens at the edges of the solver.
+ */
+public class PackedBoard extends Grid {
+
+    /** The number of bits used to store one cell. */
+    private static final int BITS = 4;
+
+    /** Mask selecting a single cell. */
+    private static final long MASK = 0xFL;
+
+    /** The largest number of cells that fit in a <b>long</b>. */
+    public static final int MAX_CELLS = 64 / BITS;
+
+    /** The winning position. */
+    private final long goal;
+
+    /**
+     * Constructs the encoding for a board of the given dimensions.
+     * @param rows The number of rows of the board
+     * @param columns The number of columns of the board
+     */
+    public PackedBoard(int rows, int columns) {
+        super(rows, columns);
+        if (!fits(rows, columns)) {
+            throw new IllegalArgumentException("A " + rows + "x" + columns + " board does not fit in a long");
+        }
+        int cells = rows * columns;
+        long winning = 0;
+        for (int index = 0; index < cells - 1; index++) {
+            winning |= (long) (index + 1) << (index * BITS);
+        }
+        goal = winning;
+    }
+
+    /**
+     * Returns <b>true</b> if a board of the given dimensions can be packed in a <b>long</b>.
+     * @param rows The number of rows of the board
+     * @param columns The number of columns of the board
+     * @return true if the board has at most <b>MAX_CELLS</b> cells
+     */
+    public static boolean fits(int rows, int columns) {
+        return rows * columns <= MAX_CELLS;
+    }
+
+    /** @return Returns the winning position */
+    public long goal() {
+        return goal;
+    }
+
+    /**
+     * Encodes a board position.
+     * @param permutation The board to encode
+     * @return The packed position
+     */
+    public long encode(RandomPermutation permutation) {
+        long tiles = 0;
+        for (int row = 0; row < getRows(); row++) {
+            for (int column = 0; column < getColumns(); column++) {
+                tiles |= (long) permutation.getType(row, column) << ((row * getColumns() + column) * BITS);
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * Decodes a packed position into a new <b>RandomPermutation</b>.
+     * @param tiles The packed position
+     * @return A new board holding the position
+     */
+    public RandomPermutation decode(long tiles) {
+        int[][] board = new int[getRows()][getColumns()];
+        for (int row = 0; row < getRows(); row++) {
+            for (int column = 0; column < getColumns(); column++) {
+                board[row][column] = tile(tiles, row * getColumns() + column);
+            }
+        }
+        return new RandomPermutation(board);
+    }
+
+    /**
+     * Decodes a packed position into an array of tiles.
+     * @param tiles The packed position
+     * @param into The array receiving the tiles in row-major order
+     */
+    public void unpack(long tiles, int[] into) {
+        for (int index = 0; index < into.length; index++) {
+            into[index] = (int) (tiles & MASK);
+            tiles >>>= BITS;
+        }
+    }
+
+    /**
+     * Returns the tile found at a given cell.
+     * @param tiles The packed position
+     * @param index The row-major index of the cell
+     * @return The tile, 0 for the empty cell
+     */
+    public static int tile(long tiles, int index) {
+        return (int) ((tiles >>> (index * BITS)) & MASK);
+    }
+
+    /**
+     * Locates the empty cell. This is a linear scan, the search only calls it
+     * once per solve and caches the index afterwards.
+     * @param tiles The packed position
+     * @return The row-major index of the empty cell
+     */
+    public int zeroIndex(long tiles) {
+        for (int index = 0; index < size(); index++) {
+            if (tile(tiles, index) == 0) {
+                return index;
+            }
+        }
+        throw new IllegalArgumentException("The position has no empty cell");
+    }
+
+    /**
+     * Moves the tile found at <b>target</b> into the empty cell.
+     * @param tiles The packed position
+     * @param zero The row-major index of the empty cell
+     * @param target The row-major index of the tile to move, adjacent to the empty cell
+     * @return The new packed position
+     */
+    public static long slide(long tiles, int zero, int target) {
+        long tile = (tiles >>> (target * BITS)) & MASK;
+        return tiles - (tile << (target * BITS)) + (tile << (zero * BITS));
+    }
+}
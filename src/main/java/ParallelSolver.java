@@ -0,0 +1,374 @@
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Solves a board with hash-distributed A* (HDA*) on several threads. Every
+ * position is owned by one worker, chosen by a hash of the position; each
+ * worker has its own open list and its own table of reached positions, and
+ * sends the neighbours it generates to their owners through lock-free
+ * <b>MpscQueue</b>s, in batches.
+ *
+ * The first solution found is not necessarily optimal, so the workers keep
+ * expanding positions whose estimated cost is below the best solution found.
+ * The search terminates when no worker has such a position and no batch is
+ * in flight. This is detected with a single counter holding the number of
+ * busy workers plus the number of batches sent but not yet received: a busy
+ * worker counts itself before sending, and an idle worker counts itself busy
+ * again before it takes a batch off the counter, so the counter only reaches
+ * zero once nothing can produce work anymore. Since the heuristic is
+ * admissible, the best solution is then optimal.
+ *
+ * Positions are packed by <b>PackedBoard</b>, so boards are limited to 16 cells.
+ */
+public class ParallelSolver implements PuzzleSolver {
+
+    /** The number of positions sent to a worker at once. */
+    private static final int BATCH = 64;
+
+    /** Outgoing batches are flushed after this many expansions even if they are not full. */
+    private static final int FLUSH_INTERVAL = 256;
+
+    /** The number of times an idle worker spins before it yields, and then parks. */
+    private static final int SPINS = 64;
+
+    /** How long an idle worker parks before it checks its inbox again, in nanoseconds. */
+    private static final long PARK_NANOS = 20_000;
+
+    /** A generated position on its way to, or in the open list of, its owner. */
+    private static final class Node {
+
+        /** The packed position. */
+        final long position;
+
+        /** The index of the empty cell. */
+        final int zero;
+
+        /** The number of moves to reach the position. */
+        final int moves;
+
+        /** The heuristic estimate of the position. */
+        final int estimate;
+
+        /** The heuristic state of the position. */
+        final int state;
+
+        /** The direction of the move that reached the position, or -1 for the initial board. */
+        final int direction;
+
+        Node(long position, int zero, int moves, int estimate, int state, int direction) {
+            this.position = position;
+            this.zero = zero;
+            this.moves = moves;
+            this.estimate = estimate;
+            this.state = state;
+            this.direction = direction;
+        }
+    }
+
+    /** The encoding used for the positions explored by the search. */
+    private final PackedBoard packed;
+
+    /** The heuristic shared by the workers. */
+    private final Heuristic heuristic;
+
+    /** The workers, indexed by the owner of the positions they handle. */
+    private final Worker[] workers;
+
+    /** The number of busy workers plus the number of batches in flight. */
+    private final AtomicLong pending = new AtomicLong();
+
+    /** The number of moves of the best solution found so far. */
+    private final AtomicInteger incumbent = new AtomicInteger(Integer.MAX_VALUE);
+
+    /** Set once the search has terminated. */
+    private volatile boolean finished;
+
+    /** The first error thrown by a worker, if any. */
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    /** The moves of a solution to an instance of the game. */
+    private MoveSequence path;
+
+    /**
+     * Constructor that finds a solution to the initial board using every processor.
+     * @param board the position that the board is currently in.
+     */
+    public ParallelSolver(RandomPermutation board) {
+        this(board, new ManhattanHeuristic(board.getRows(), board.getColumns()),
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor that finds a solution to the initial board.
+     * @param board the position that the board is currently in.
+     * @param heuristic an admissible heuristic for boards of this size
+     * @param threads the number of workers
+     * @throws IllegalArgumentException if the board cannot be solved
+     */
+    public ParallelSolver(RandomPermutation board, Heuristic heuristic, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed");
+        }
+        Solvability.require(board);
+        this.heuristic = heuristic;
+        packed = new PackedBoard(board.getRows(), board.getColumns());
+        workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(i);
+        }
+
+        long start = packed.encode(board);
+        int[] tiles = new int[packed.size()];
+        packed.unpack(start, tiles);
+        Node initial = new Node(start, packed.zeroIndex(start), 0, heuristic.estimate(tiles), heuristic.state(tiles),
+                -1);
+        pending.incrementAndGet();
+        workers[owner(start)].inbox.offer(new Node[] {initial});
+
+        Thread[] running = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            running[i] = new Thread(workers[i], "ParallelSolver-" + i);
+            running[i].start();
+        }
+        try {
+            for (Thread thread : running) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            finished = true;
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while solving", e);
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("A worker failed", failure.get());
+        }
+        if (incumbent.get() == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The board cannot be solved");
+        }
+
+        // walk back from the goal, asking the owner of each position how it was reached
+        long[] path = new long[incumbent.get() + 1];
+        long position = packed.goal();
+        int zero = packed.size() - 1;
+        for (int i = path.length - 1; i > 0; i--) {
+            path[i] = position;
+            int direction = workers[owner(position)].reached.get(position) % Direction.COUNT;
+            int target = packed.target(zero, Direction.opposite(direction));
+            position = PackedBoard.slide(position, zero, target);
+            zero = target;
+        }
+        path[0] = position;
+        this.path = MoveSequence.of(packed, path);
+    }
+
+    /**
+     * Returns the worker that owns a position.
+     * @param position the packed position
+     * @return the index of the worker
+     */
+    private int owner(long position) {
+        // a different mix than StateTable, so a worker's positions still spread over its table
+        return (int) (((position * 0xBF58476D1CE4E5B9L) >>> 33) % workers.length);
+    }
+
+    /** One thread of the search, owning a share of the positions. */
+    private final class Worker implements Runnable {
+
+        /** The index of this worker. */
+        private final int index;
+
+        /** The batches sent to this worker. */
+        private final MpscQueue<Node[]> inbox = new MpscQueue<>();
+
+        /** The positions to expand, by estimated cost then deepest first. */
+        private final PriorityQueue<Node> open = new PriorityQueue<>((a, b) -> {
+            int order = Integer.compare(a.moves + a.estimate, b.moves + b.estimate);
+            return order != 0 ? order : Integer.compare(b.moves, a.moves);
+        });
+
+        /** For every position owned and reached, its moves times four plus the direction that reached it. */
+        private final StateTable reached = new StateTable();
+
+        /** The positions generated for each other worker, not sent yet. */
+        private final Node[][] outgoing;
+
+        /** The number of positions in each outgoing batch. */
+        private final int[] outgoingSizes;
+
+        /** True while this worker is counted in pending. */
+        private boolean busy;
+
+        /** The number of positions expanded by this worker. */
+        private long expansions;
+
+        Worker(int index) {
+            this.index = index;
+            outgoing = new Node[workers.length][BATCH];
+            outgoingSizes = new int[workers.length];
+        }
+
+        @Override
+        public void run() {
+            try {
+                int[] tiles = new int[packed.size()];
+                int sinceFlush = 0;
+                int idle = 0;
+                while (!finished) {
+                    receive();
+                    Node node = open.peek();
+                    if (node != null && node.moves + node.estimate < incumbent.get()) {
+                        idle = 0;
+                        open.poll();
+                        expand(node, tiles);
+                        if (++sinceFlush == FLUSH_INTERVAL) {
+                            flush();
+                            sinceFlush = 0;
+                        }
+                    } else if (busy) {
+                        // nothing worth expanding, hand everything out before going idle
+                        flush();
+                        busy = false;
+                        if (pending.decrementAndGet() == 0) {
+                            finished = true;
+                        }
+                    } else if (++idle < SPINS) {
+                        Thread.onSpinWait();
+                    } else if (idle < 2 * SPINS) {
+                        Thread.yield();
+                    } else {
+                        LockSupport.parkNanos(PARK_NANOS);
+                    }
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+                finished = true;
+            }
+        }
+
+        /** Moves the batches received into the open list. */
+        private void receive() {
+            Node[] batch;
+            while ((batch = inbox.poll()) != null) {
+                if (!busy) {
+                    // count this worker before the batch stops being counted
+                    busy = true;
+                    pending.incrementAndGet();
+                }
+                for (Node node : batch) {
+                    insert(node);
+                }
+                pending.decrementAndGet();
+            }
+        }
+
+        /**
+         * Adds a position to the open list, unless it was already reached
+         * with as few moves.
+         * @param node the generated position
+         */
+        private void insert(Node node) {
+            int known = reached.get(node.position);
+            if (known != StateTable.MISSING && known / Direction.COUNT <= node.moves) {
+                return;
+            }
+            reached.put(node.position, node.moves * Direction.COUNT + Math.max(node.direction, 0));
+            open.add(node);
+        }
+
+        /**
+         * Generates the neighbours of a position and sends them to their owners.
+         * @param node the position to expand
+         * @param tiles scratch array receiving the tiles of the position
+         */
+        private void expand(Node node, int[] tiles) {
+            if (reached.get(node.position) / Direction.COUNT < node.moves) {
+                // stale, the position was reached again with fewer moves
+                return;
+            }
+            if (node.position == packed.goal()) {
+                incumbent.accumulateAndGet(node.moves, Math::min);
+                return;
+            }
+            expansions++;
+            packed.unpack(node.position, tiles);
+            int zero = node.zero;
+            for (int direction = 0; direction < Direction.COUNT; direction++) {
+                if (node.direction >= 0 && direction == Direction.opposite(node.direction)) {
+                    continue;
+                }
+                int target = packed.target(zero, direction);
+                if (target < 0) {
+                    continue;
+                }
+                tiles[zero] = tiles[target];
+                tiles[target] = 0;
+                int estimate = heuristic.update(node.estimate, node.state, tiles, target, zero);
+                int state = heuristic.advance(node.state, tiles, target, zero);
+                tiles[target] = tiles[zero];
+                tiles[zero] = 0;
+                if (node.moves + 1 + estimate >= incumbent.get()) {
+                    continue;
+                }
+
+                long neighbour = PackedBoard.slide(node.position, zero, target);
+                Node child = new Node(neighbour, target, node.moves + 1, estimate, state, direction);
+                int owner = owner(neighbour);
+                if (owner == index) {
+                    insert(child);
+                } else {
+                    outgoing[owner][outgoingSizes[owner]++] = child;
+                    if (outgoingSizes[owner] == BATCH) {
+                        send(owner);
+                    }
+                }
+            }
+        }
+
+        /** Sends every outgoing batch that is not empty. */
+        private void flush() {
+            for (int owner = 0; owner < workers.length; owner++) {
+                if (outgoingSizes[owner] > 0) {
+                    send(owner);
+                }
+            }
+        }
+
+        /**
+         * Sends the outgoing batch of a worker. The batch is counted before
+         * it is added to the queue, while this worker is still busy.
+         * @param owner the index of the receiving worker
+         */
+        private void send(int owner) {
+            Node[] batch = Arrays.copyOf(outgoing[owner], outgoingSizes[owner]);
+            outgoingSizes[owner] = 0;
+            pending.incrementAndGet();
+            workers[owner].inbox.offer(batch);
+        }
+    }
+
+    /** @return The minimum number of moves to solve the initial board. */
+    @Override
+    public int moves() {
+        return path.length();
+    }
+
+    /** @return The moves of the solution. */
+    @Override
+    public MoveSequence path() {
+        return path;
+    }
+
+    /** @return The number of positions whose neighbours were generated during the search. */
+    @Override
+    public long expansions() {
+        long expansions = 0;
+        for (Worker worker : workers) {
+            expansions += worker.expansions;
+        }
+        return expansions;
+    }
+}
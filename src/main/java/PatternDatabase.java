@@ -0,0 +1,500 @@
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A disjoint additive pattern database heuristic. The tiles are split into
+ * disjoint patterns, e.g. 6-6-3 for the 15-puzzle, and for each pattern a
+ * table gives the exact number of moves of the pattern tiles needed to bring
+ * them to their goal cells, wherever the other tiles are. Since a move only
+ * moves one tile, the values of the different patterns can be added.
+ *
+ * A table is indexed by the rank of the cells holding the tiles of the
+ * pattern, among the k-permutations of the cells, and stores one byte per
+ * entry. The tables are built once by the main method of this class and
+ * written to a file with the following layout, all integers being big-endian:
+ * <pre>
+ *   int magic, int rows, int columns, int number of patterns,
+ *   for each pattern: int number of tiles, followed by the tiles,
+ *   for each pattern: the bytes of its table.
+ * </pre>
+ * Opening a file only reads the header, the tables are memory-mapped the first
+ * time the heuristic is evaluated.
+ */
+public class PatternDatabase implements Heuristic {
+
+    /** The first four bytes of a pattern database file, "PDB1". */
+    private static final int MAGIC = 0x50444231;
+
+    /** The number of bits used to store the cell of a pattern tile while ranking. */
+    private static final int BITS = 5;
+
+    /** The largest number of cells of a board supported by the ranking. */
+    private static final int MAX_CELLS = 1 << BITS;
+
+    /** The largest number of tiles of a pattern supported by the ranking. */
+    private static final int MAX_PATTERN = 64 / BITS;
+
+    /** The number of rows of the board. */
+    private final int rows;
+
+    /** The number of columns of the board. */
+    private final int columns;
+
+    /** The tiles of each pattern. */
+    private final int[][] patterns;
+
+    /** For every tile, the pattern it belongs to, or -1. */
+    private final int[] patternOf;
+
+    /** For every tile, its position within its pattern. */
+    private final int[] orderOf;
+
+    /** For every pattern and every position within it, the weight of its digit in the rank. */
+    private final int[][] weights;
+
+    /** The file holding the tables, or null if they were built in memory. */
+    private final Path path;
+
+    /** The offset in the file of the table of each pattern. */
+    private final long[] offsets;
+
+    /** The table of each pattern, mapped on first use. */
+    private volatile ByteBuffer[] tables;
+
+    /**
+     * Constructs the heuristic for the given patterns.
+     * @param rows The number of rows of the board
+     * @param columns The number of columns of the board
+     * @param patterns The tiles of each pattern, disjoint
+     * @param path The file holding the tables, or null
+     * @param tables The tables, or null to map them from the file on first use
+     */
+    private PatternDatabase(int rows, int columns, int[][] patterns, Path path, ByteBuffer[] tables) {
+        int size = rows * columns;
+        if (size > MAX_CELLS) {
+            throw new IllegalArgumentException("A " + rows + "x" + columns + " board is too large for a pattern database");
+        }
+        if (patterns.length == 0) {
+            throw new IllegalArgumentException("A pattern database needs at least one pattern");
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.patterns = patterns;
+        this.path = path;
+        this.tables = tables;
+
+        patternOf = new int[size];
+        orderOf = new int[size];
+        Arrays.fill(patternOf, -1);
+        weights = new int[patterns.length][];
+        offsets = new long[patterns.length];
+        long offset = headerSize(patterns);
+        for (int p = 0; p < patterns.length; p++) {
+            int[] pattern = patterns[p];
+            if (pattern.length == 0 || pattern.length > MAX_PATTERN) {
+                throw new IllegalArgumentException("A pattern must have between 1 and " + MAX_PATTERN + " tiles");
+            }
+            for (int i = 0; i < pattern.length; i++) {
+                int tile = pattern[i];
+                if (tile <= 0 || tile >= size || patternOf[tile] >= 0) {
+                    throw new IllegalArgumentException("Tile " + tile + " is invalid or in more than one pattern");
+                }
+                patternOf[tile] = p;
+                orderOf[tile] = i;
+            }
+            weights[p] = new int[pattern.length];
+            for (int i = 0; i < pattern.length; i++) {
+                weights[p][i] = (int) arrangements(size - 1 - i, pattern.length - 1 - i);
+            }
+            offsets[p] = offset;
+            offset += arrangements(size, pattern.length);
+        }
+    }
+
+    /**
+     * Builds the tables of the given patterns in memory.
+     * @param rows The number of rows of the board
+     * @param columns The number of columns of the board
+     * @param patterns The tiles of each pattern, disjoint
+     * @return The heuristic
+     */
+    public static PatternDatabase build(int rows, int columns, int[][] patterns) {
+        PatternDatabase database = new PatternDatabase(rows, columns, patterns, null, null);
+        ByteBuffer[] tables = new ByteBuffer[patterns.length];
+        for (int p = 0; p < patterns.length; p++) {
+            tables[p] = ByteBuffer.wrap(database.buildTable(p)).asReadOnlyBuffer();
+        }
+        database.tables = tables;
+        return database;
+    }
+
+    /**
+     * Opens a pattern database file. Only the header is read, the tables are
+     * memory-mapped the first time the heuristic is evaluated.
+     * @param path The file written by {@link #write(Path)}
+     * @return The heuristic
+     * @throws IOException if the file cannot be read or is not a pattern database
+     */
+    public static PatternDatabase open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(4 * (4 + MAX_CELLS + MAX_CELLS));
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading, the file may be shorter than the buffer
+            }
+            header.flip();
+            if (header.remaining() < 16 || header.getInt() != MAGIC) {
+                throw new IOException(path + " is not a pattern database");
+            }
+            int rows = header.getInt();
+            int columns = header.getInt();
+            int[][] patterns = new int[header.getInt()][];
+            for (int p = 0; p < patterns.length; p++) {
+                patterns[p] = new int[header.getInt()];
+                for (int i = 0; i < patterns[p].length; i++) {
+                    patterns[p][i] = header.getInt();
+                }
+            }
+            PatternDatabase database = new PatternDatabase(rows, columns, patterns, path, null);
+            long expected = database.offsets[patterns.length - 1]
+                    + arrangements(rows * columns, patterns[patterns.length - 1].length);
+            if (channel.size() != expected) {
+                throw new IOException(path + " should hold " + expected + " bytes");
+            }
+            return database;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException(path + " is not a valid pattern database", e);
+        }
+    }
+
+    /**
+     * Writes the database to a file.
+     * @param file The file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+        ByteBuffer[] tables = tables();
+        ByteBuffer header = ByteBuffer.allocate((int) headerSize(patterns));
+        header.putInt(MAGIC).putInt(rows).putInt(columns).putInt(patterns.length);
+        for (int[] pattern : patterns) {
+            header.putInt(pattern.length);
+            for (int tile : pattern) {
+                header.putInt(tile);
+            }
+        }
+        header.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            write(channel, header);
+            for (ByteBuffer table : tables) {
+                write(channel, table.duplicate().rewind());
+            }
+        }
+    }
+
+    @Override
+    public int estimate(int[] tiles) {
+        ByteBuffer[] tables = tables();
+        int estimate = 0;
+        for (int p = 0; p < patterns.length; p++) {
+            estimate += tables[p].get(rank(p, positions(tiles, p))) & 0xFF;
+        }
+        return estimate;
+    }
+
+    @Override
+    public int update(int estimate, int[] tiles, int from, int to) {
+        int tile = tiles[to];
+        int p = patternOf[tile];
+        if (p < 0) {
+            return estimate;
+        }
+        // only the pattern of the moved tile changes, its old cells differ by one tile
+        ByteBuffer table = tables()[p];
+        long after = positions(tiles, p);
+        int shift = BITS * orderOf[tile];
+        long before = (after & ~((long) (MAX_CELLS - 1) << shift)) | ((long) from << shift);
+        return estimate - (table.get(rank(p, before)) & 0xFF) + (table.get(rank(p, after)) & 0xFF);
+    }
+
+    /**
+     * Collects the cells holding the tiles of a pattern, BITS bits per tile,
+     * in the order of the pattern.
+     * @param tiles the tiles in row-major order
+     * @param p the pattern
+     * @return the packed cells
+     */
+    private long positions(int[] tiles, int p) {
+        long positions = 0;
+        for (int index = 0; index < tiles.length; index++) {
+            int tile = tiles[index];
+            if (patternOf[tile] == p) {
+                positions |= (long) index << (BITS * orderOf[tile]);
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Ranks the cells of a pattern among the k-permutations of the cells.
+     * @param p the pattern
+     * @param positions the packed cells, see {@link #positions(int[], int)}
+     * @return the index of the entry in the table of the pattern
+     */
+    private int rank(int p, long positions) {
+        int[] weight = weights[p];
+        int used = 0;
+        int rank = 0;
+        for (int i = 0; i < weight.length; i++) {
+            int cell = (int) (positions >>> (BITS * i)) & (MAX_CELLS - 1);
+            rank += (cell - Integer.bitCount(used & ((1 << cell) - 1))) * weight[i];
+            used |= 1 << cell;
+        }
+        return rank;
+    }
+
+    /** @return The tables, mapping them from the file on first use */
+    private ByteBuffer[] tables() {
+        ByteBuffer[] result = tables;
+        if (result == null) {
+            synchronized (this) {
+                result = tables;
+                if (result == null) {
+                    result = map();
+                    tables = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /** @return The tables, memory-mapped from the file */
+    private ByteBuffer[] map() {
+        ByteBuffer[] result = new ByteBuffer[patterns.length];
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            for (int p = 0; p < patterns.length; p++) {
+                result[p] = channel.map(FileChannel.MapMode.READ_ONLY, offsets[p],
+                        arrangements(rows * columns, patterns[p].length));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot map the pattern database " + path, e);
+        }
+        return result;
+    }
+
+    /**
+     * Builds the table of a pattern by a breadth-first search backwards from
+     * the winning position, over the cells of the pattern tiles and of the
+     * empty cell. Moving the empty cell over another tile is free, moving it
+     * over a pattern tile costs one move.
+     * @param p the pattern
+     * @return one byte per k-permutation of the cells
+     */
+    private byte[] buildTable(int p) {
+        int size = rows * columns;
+        int[] pattern = patterns[p];
+        int entries = (int) arrangements(size, pattern.length);
+        if ((long) entries * size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The pattern is too large to be built");
+        }
+
+        // a state is the rank of the pattern cells times the number of cells, plus the empty cell
+        byte[] moves = new byte[entries * size];
+        Arrays.fill(moves, (byte) 0xFF);
+        int[] cells = new int[pattern.length];
+        int[] occupant = new int[size];
+
+        long goal = 0;
+        for (int i = 0; i < pattern.length; i++) {
+            goal |= (long) (pattern[i] - 1) << (BITS * i);
+        }
+        int start = rank(p, goal) * size + size - 1;
+        moves[start] = 0;
+
+        Grid grid = new Grid(rows, columns);
+        IntList current = new IntList();
+        IntList next = new IntList();
+        current.add(start);
+        for (int cost = 0; current.size() > 0; cost++) {
+            for (int i = 0; i < current.size(); i++) {
+                int state = current.get(i);
+                if ((moves[state] & 0xFF) != cost) {
+                    // reached later by a cheaper path
+                    continue;
+                }
+                int rank = state / size;
+                int zero = state % size;
+                unrank(p, rank, cells);
+                Arrays.fill(occupant, -1);
+                for (int j = 0; j < cells.length; j++) {
+                    occupant[cells[j]] = j;
+                }
+
+                for (int direction = 0; direction < Direction.COUNT; direction++) {
+                    int target = grid.target(zero, direction);
+                    if (target < 0) {
+                        continue;
+                    }
+                    int tile = occupant[target];
+                    if (tile < 0) {
+                        int successor = rank * size + target;
+                        if ((moves[successor] & 0xFF) > cost) {
+                            moves[successor] = (byte) cost;
+                            current.add(successor);
+                        }
+                    } else {
+                        cells[tile] = zero;
+                        long packed = 0;
+                        for (int j = 0; j < cells.length; j++) {
+                            packed |= (long) cells[j] << (BITS * j);
+                        }
+                        cells[tile] = target;
+                        int successor = rank(p, packed) * size + target;
+                        if ((moves[successor] & 0xFF) > cost + 1) {
+                            moves[successor] = (byte) (cost + 1);
+                            next.add(successor);
+                        }
+                    }
+                }
+            }
+            IntList done = current;
+            current = next;
+            next = done;
+            next.clear();
+        }
+
+        // the empty cell can be anywhere, keep the best
+        byte[] table = new byte[entries];
+        for (int rank = 0; rank < entries; rank++) {
+            int best = 0xFF;
+            for (int zero = 0; zero < size; zero++) {
+                best = Math.min(best, moves[rank * size + zero] & 0xFF);
+            }
+            table[rank] = (byte) best;
+        }
+        return table;
+    }
+
+    /**
+     * Computes the cells of the pattern tiles from a rank.
+     * @param p the pattern
+     * @param rank the rank computed by {@link #rank(int, long)}
+     * @param cells receives the cell of each tile of the pattern
+     */
+    private void unrank(int p, int rank, int[] cells) {
+        int[] weight = weights[p];
+        int used = 0;
+        for (int i = 0; i < weight.length; i++) {
+            int digit = rank / weight[i];
+            rank %= weight[i];
+            // the digit-th cell that is not used yet
+            int cell = 0;
+            while (Integer.bitCount(~used & ((1 << cell) - 1)) != digit || (used & (1 << cell)) != 0) {
+                cell++;
+            }
+            cells[i] = cell;
+            used |= 1 << cell;
+        }
+    }
+
+    /**
+     * Returns the number of k-permutations of n elements, n! / (n - k)!.
+     * @param n the number of elements
+     * @param k the number of elements arranged
+     * @return the number of arrangements
+     */
+    private static long arrangements(int n, int k) {
+        long result = 1;
+        for (int i = 0; i < k; i++) {
+            result *= n - i;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the size of the header of a file holding the given patterns.
+     * @param patterns the tiles of each pattern
+     * @return the number of bytes before the first table
+     */
+    private static long headerSize(int[][] patterns) {
+        long size = 4 * 4;
+        for (int[] pattern : patterns) {
+            size += 4 * (1 + pattern.length);
+        }
+        return size;
+    }
+
+    /**
+     * Writes a whole buffer to a channel.
+     * @param channel the channel to write to
+     * @param buffer the bytes to write
+     * @throws IOException if the bytes cannot be written
+     */
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /** A growable list of <b>int</b>, used as the queues of the breadth-first search. */
+    private static class IntList {
+
+        /** The elements, followed by unused capacity. */
+        private int[] elements = new int[1024];
+
+        /** The number of elements. */
+        private int size;
+
+        void add(int element) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, elements.length * 2);
+            }
+            elements[size++] = element;
+        }
+
+        int get(int index) {
+            return elements[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+
+    /**
+     * Builds a pattern database and writes it to a file. Usage:
+     * <code>java PatternDatabase rows columns pattern... file</code>, where
+     * each pattern is a comma separated list of tiles, e.g.
+     * <code>java PatternDatabase 4 4 1,2,3,4,5,6 7,8,9,10,11,12 13,14,15 pdb-4x4.bin</code>
+     *
+     * @param args the command line arguments
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.err.println("Usage: java PatternDatabase rows columns pattern... file");
+            System.exit(1);
+        }
+        int rows = Integer.parseInt(args[0]);
+        int columns = Integer.parseInt(args[1]);
+        int[][] patterns = new int[args.length - 3][];
+        for (int p = 0; p < patterns.length; p++) {
+            patterns[p] = Arrays.stream(args[p + 2].split(",")).mapToInt(Integer::parseInt).toArray();
+        }
+        Path file = Paths.get(args[args.length - 1]);
+
+        long start = System.currentTimeMillis();
+        build(rows, columns, patterns).write(file);
+        long stop = System.currentTimeMillis();
+        System.out.printf("Wrote %s in %d ms. %n", file, stop - start);
+    }
+}
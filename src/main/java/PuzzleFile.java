@@ -0,0 +1,484 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A compact binary file of boards of the same size, and optionally of their
+ * solutions, read and written without parsing text. Every number is stored
+ * big-endian. The file starts with an 8-byte header:
+ * <ul>
+ * <li>the magic number <code>8PZL</code>, in 4 bytes</li>
+ * <li>the version of the format, 1, in 1 byte</li>
+ * <li>the number of rows and the number of columns, in 1 byte each</li>
+ * <li>the flags, 1 byte: 1 if the records hold solutions</li>
+ * </ul>
+ * Each record then holds a board, as the 8 bytes of its position packed by
+ * <b>PackedBoard</b>, so boards are limited to 16 cells. A record with a
+ * solution follows it with the number of moves in 2 bytes, and the moves in
+ * 2 bits each, four to a byte, the first one in the lowest bits. A move is
+ * the <b>Direction</b> the empty cell moves in.
+ *
+ * The <b>Writer</b> fills a direct buffer and writes it to the file channel
+ * whenever it is full. The <b>Reader</b> maps the file into memory a window at
+ * a time, so corpora larger than the address space reserved for one buffer
+ * stream through without being copied to the heap.
+ */
+public final class PuzzleFile {
+
+    /** The first four bytes of a puzzle file, "8PZL". */
+    static final int MAGIC = 0x38505A4C;
+
+    /** The version of the format. */
+    static final int VERSION = 1;
+
+    /** The flag set when the records hold solutions. */
+    static final int SOLUTIONS = 1;
+
+    /** The number of bytes of the header. */
+    static final int HEADER_BYTES = 8;
+
+    /** The largest number of moves of a solution. */
+    public static final int MAX_MOVES = 0xFFFF;
+
+    /** The number of moves packed in a byte. */
+    private static final int MOVES_PER_BYTE = 4;
+
+    private PuzzleFile() {
+    }
+
+    /**
+     * Returns the number of bytes holding the moves of a solution.
+     * @param moves the number of moves
+     * @return Returns the number of bytes, the last one possibly partly used
+     */
+    static int movesBytes(int moves) {
+        return (moves + MOVES_PER_BYTE - 1) / MOVES_PER_BYTE;
+    }
+
+    /**
+     * Writes boards, and optionally their solutions, to a new file.
+     */
+    public static final class Writer implements AutoCloseable {
+
+        /** The number of bytes buffered before they are written to the file. */
+        private static final int BUFFER_BYTES = 1 << 20;
+
+        /** The file written. */
+        private final FileChannel channel;
+
+        /** The bytes not written to the file yet. */
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+        /** The encoding of the boards. */
+        private final PackedBoard packed;
+
+        /** True if the records hold solutions. */
+        private final boolean solutions;
+
+        /** The moves of the record being written, packed. */
+        private byte[] moves = new byte[16];
+
+        /** The number of records written. */
+        private long count;
+
+        /**
+         * Creates a file, replacing any existing one, and writes its header.
+         * @param file the file to write
+         * @param rows the number of rows of the boards
+         * @param columns the number of columns of the boards
+         * @param solutions true if every record holds a solution
+         * @throws IOException if the file cannot be created
+         * @throws IllegalArgumentException if boards of this size do not fit in a <b>long</b>
+         */
+        public Writer(Path file, int rows, int columns, boolean solutions) throws IOException {
+            packed = new PackedBoard(rows, columns);
+            this.solutions = solutions;
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            buffer.putInt(MAGIC).put((byte) VERSION).put((byte) rows).put((byte) columns)
+                    .put((byte) (solutions ? SOLUTIONS : 0));
+        }
+
+        /**
+         * Writes a board, to a file without solutions.
+         * @param position the packed position of the board
+         * @throws IOException if the file cannot be written
+         */
+        public void write(long position) throws IOException {
+            if (solutions) {
+                throw new IllegalStateException("The records of this file need a solution");
+            }
+            reserve(Long.BYTES);
+            buffer.putLong(position);
+            count++;
+        }
+
+        /**
+         * Writes a board, to a file without solutions.
+         * @param board the board
+         * @throws IOException if the file cannot be written
+         */
+        public void write(RandomPermutation board) throws IOException {
+            write(packed.encode(board));
+        }
+
+        /**
+         * Writes a board and its solution, to a file with solutions.
+         * @param position the packed position of the board
+         * @param directions the direction of each move, from the first one
+         * @param length the number of moves
+         * @throws IOException if the file cannot be written
+         */
+        public void write(long position, byte[] directions, int length) throws IOException {
+            ensureMoves(length);
+            for (int i = 0; i < length; i++) {
+                moves[i / MOVES_PER_BYTE] |= (byte) (directions[i] << (i % MOVES_PER_BYTE * 2));
+            }
+            writeRecord(position, length);
+        }
+
+        /**
+         * Writes a board and its solution, to a file with solutions.
+         * @param solution the moves of the solution, from the board they start from
+         * @throws IOException if the file cannot be written
+         */
+        public void write(MoveSequence solution) throws IOException {
+            int length = solution.length();
+            ensureMoves(length);
+            // both pack the moves the same way
+            System.arraycopy(solution.packedMoves(), 0, moves, 0, movesBytes(length));
+            writeRecord(packed.encode(solution.start()), length);
+        }
+
+        /** @return Returns the number of records written */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * Writes the buffered records and closes the file.
+         * @throws IOException if the file cannot be written
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+
+        /**
+         * Prepares the packed moves of a record with a solution.
+         * @param length the number of moves
+         */
+        private void ensureMoves(int length) {
+            if (!solutions) {
+                throw new IllegalStateException("The records of this file have no solution");
+            }
+            if (length > MAX_MOVES) {
+                throw new IllegalArgumentException("A solution has at most " + MAX_MOVES + " moves: " + length);
+            }
+            int bytes = movesBytes(length);
+            if (moves.length < bytes) {
+                moves = new byte[bytes];
+            }
+            Arrays.fill(moves, 0, bytes, (byte) 0);
+        }
+
+        /**
+         * Writes a record with a solution, whose moves are already packed.
+         * @param position the packed position of the board
+         * @param length the number of moves
+         * @throws IOException if the file cannot be written
+         */
+        private void writeRecord(long position, int length) throws IOException {
+            int bytes = movesBytes(length);
+            reserve(Long.BYTES + Short.BYTES + bytes);
+            buffer.putLong(position).putShort((short) length).put(moves, 0, bytes);
+            count++;
+        }
+
+        /**
+         * Makes room in the buffer for a record.
+         * @param bytes the size of the record, at most the size of the buffer
+         * @throws IOException if the file cannot be written
+         */
+        private void reserve(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        /**
+         * Writes the buffered bytes to the file.
+         * @throws IOException if the file cannot be written
+         */
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Reads the records of a file one at a time. {@link #next()} moves to the
+     * next record, whose board and moves are then available until the
+     * following call. Every board is checked as it is read: a record that is
+     * not a permutation of the tiles, or that cannot be solved, fails the
+     * read instead of reaching a solver.
+     */
+    public static final class Reader implements AutoCloseable {
+
+        /** The largest number of bytes mapped at once. */
+        private static final long WINDOW_BYTES = 1L << 28;
+
+        /** The file read. */
+        private final FileChannel channel;
+
+        /** The size of the file in bytes. */
+        private final long size;
+
+        /** The encoding of the boards. */
+        private final PackedBoard packed;
+
+        /** True if the records hold solutions. */
+        private final boolean solutions;
+
+        /** The part of the file mapped. */
+        private MappedByteBuffer window;
+
+        /** The offset in the file of the start of the window. */
+        private long windowStart;
+
+        /** The packed position of the current record. */
+        private long position;
+
+        /** The number of moves of the current record. */
+        private int length;
+
+        /** The packed moves of the current record. */
+        private byte[] moves = new byte[16];
+
+        /** The number of records read, the index of the current one plus one. */
+        private long records;
+
+        /**
+         * Opens a file and reads its header.
+         * @param file the file to read
+         * @throws IOException if the file cannot be read or is not a puzzle file
+         */
+        public Reader(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                size = channel.size();
+                map(0);
+                if (window.remaining() < HEADER_BYTES || window.getInt() != MAGIC) {
+                    throw new IOException("Not a puzzle file: " + file);
+                }
+                int version = window.get();
+                if (version != VERSION) {
+                    throw new IOException("Unsupported version " + version + " of puzzle file " + file);
+                }
+                int rows = window.get();
+                int columns = window.get();
+                packed = new PackedBoard(rows, columns);
+                solutions = (window.get() & SOLUTIONS) != 0;
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /** @return Returns the number of rows of the boards */
+        public int getRows() {
+            return packed.getRows();
+        }
+
+        /** @return Returns the number of columns of the boards */
+        public int getColumns() {
+            return packed.getColumns();
+        }
+
+        /** @return Returns true if the records hold solutions */
+        public boolean hasSolutions() {
+            return solutions;
+        }
+
+        /**
+         * Moves to the next record.
+         * @return Returns false if there are no more records
+         * @throws IOException if the file cannot be read, ends within a record, or holds an invalid or
+         *         unsolvable board
+         */
+        public boolean next() throws IOException {
+            if (windowStart + window.position() == size) {
+                return false;
+            }
+            ensure(solutions ? Long.BYTES + Short.BYTES : Long.BYTES);
+            position = window.getLong();
+            check(position, records++);
+            if (solutions) {
+                length = Short.toUnsignedInt(window.getShort());
+                int bytes = movesBytes(length);
+                ensure(bytes);
+                if (moves.length < bytes) {
+                    moves = new byte[bytes];
+                }
+                window.get(moves, 0, bytes);
+            }
+            return true;
+        }
+
+        /**
+         * Checks that a record holds every tile once, and a board that can be solved.
+         * @param position the packed position of the board
+         * @param record the index of the record, 0 for the first one
+         * @throws IOException if the board is invalid or cannot be solved
+         */
+        private void check(long position, long record) throws IOException {
+            int cells = packed.size();
+            int seen = 0;
+            for (int index = 0; index < PackedBoard.MAX_CELLS; index++) {
+                int tile = PackedBoard.tile(position, index);
+                if (index >= cells) {
+                    if (tile != 0) {
+                        throw new IOException("Record " + record + " holds more than " + cells + " tiles");
+                    }
+                } else if (tile >= cells || (seen >>> tile & 1) != 0) {
+                    throw new IOException("Record " + record + " is not a permutation of the tiles 0 to "
+                            + (cells - 1));
+                }
+                seen |= 1 << tile;
+            }
+            if (!Solvability.isSolvable(position, packed)) {
+                throw new IOException("Record " + record + " holds a board that cannot be solved");
+            }
+        }
+
+        /** @return Returns the packed position of the board of the current record */
+        public long position() {
+            return position;
+        }
+
+        /** @return Returns the board of the current record */
+        public RandomPermutation board() {
+            return packed.decode(position);
+        }
+
+        /** @return Returns the solution of the current record, which must have one */
+        public MoveSequence solution() {
+            if (!solutions) {
+                throw new IllegalStateException("The records of this file have no solution");
+            }
+            return new MoveSequence(board(), Arrays.copyOf(moves, movesBytes(length)), length);
+        }
+
+        /** @return Returns the number of moves of the solution of the current record, 0 if none */
+        public int length() {
+            return length;
+        }
+
+        /**
+         * Returns a move of the solution of the current record.
+         * @param index the index of the move, 0 for the first one
+         * @return Returns the direction the empty cell moves in
+         */
+        public int move(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("Move " + index + " of " + length);
+            }
+            return (moves[index / MOVES_PER_BYTE] >>> (index % MOVES_PER_BYTE * 2)) & 3;
+        }
+
+        /**
+         * Returns the boards of the remaining records, read as the stream is
+         * consumed, e.g. by <b>BatchSolver.submitAll</b>. The stream is
+         * sequential; an error reading the file is thrown as an
+         * <b>UncheckedIOException</b>.
+         * @return Returns the boards, in the order of the file
+         */
+        public Stream<RandomPermutation> boards() {
+            Iterator<RandomPermutation> boards = new Iterator<>() {
+
+                /** True if the current record was read and not returned yet. */
+                private boolean ready;
+
+                /** True once the last record was read. */
+                private boolean done;
+
+                @Override
+                public boolean hasNext() {
+                    if (!ready && !done) {
+                        try {
+                            ready = Reader.this.next();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        done = !ready;
+                    }
+                    return ready;
+                }
+
+                @Override
+                public RandomPermutation next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    ready = false;
+                    return board();
+                }
+            };
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(boards,
+                    Spliterator.ORDERED | Spliterator.NONNULL), false);
+        }
+
+        /**
+         * Closes the file. The mapped window is released once it is collected.
+         * @throws IOException if the file cannot be closed
+         */
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        /**
+         * Makes sure the window holds the next bytes of the file, mapping the
+         * following part of the file if needed.
+         * @param bytes the number of bytes about to be read
+         * @throws IOException if the file cannot be mapped or is too short
+         */
+        private void ensure(int bytes) throws IOException {
+            if (window.remaining() < bytes) {
+                map(windowStart + window.position());
+                if (window.remaining() < bytes) {
+                    throw new EOFException("The puzzle file ends within a record");
+                }
+            }
+        }
+
+        /**
+         * Maps a window of the file.
+         * @param start the offset of the window in the file
+         * @throws IOException if the file cannot be mapped
+         */
+        private void map(long start) throws IOException {
+            windowStart = start;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_BYTES, size - start));
+        }
+    }
+}
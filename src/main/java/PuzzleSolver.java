@@ -0,0 +1,40 @@
+import java.util.Stack;
+
+/**
+ * The common interface of the search engines that solve a board. A solver
+ * finds its solution when it is constructed and keeps it as a
+ * <b>MoveSequence</b>. It can also be read as a stack of the positions the
+ * board goes through, the first move being on top, which is built on demand.
+ */
+public interface PuzzleSolver {
+
+    /** @return The number of moves of the solution found. */
+    int moves();
+
+    /** @return The moves of the solution found. */
+    MoveSequence path();
+
+    /** @return A new stack of RandomPermutation positions in solution, the first one on top. */
+    default Stack<RandomPermutation> solution() {
+        return path().toStack();
+    }
+
+    /** @return The number of positions whose neighbours were generated during the search. */
+    long expansions();
+
+    /**
+     * Solves a board with the solver suited to its size: A* for boards of up
+     * to 3x3, and IDA* with the linear-conflict heuristic above that, whose
+     * memory use does not grow with the number of positions explored.
+     * @param board the position that the board is currently in.
+     * @return the solver, holding the solution
+     */
+    static PuzzleSolver solve(RandomPermutation board) {
+        int rows = board.getRows();
+        int columns = board.getColumns();
+        if (rows * columns <= 9) {
+            return new Solver(board);
+        }
+        return new IDASolver(board, new LinearConflictHeuristic(rows, columns));
+    }
+}
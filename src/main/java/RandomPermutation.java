@@ -1,17 +1,9 @@
-import java.util.Random;
-import java.util.PriorityQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class RandomPermutation implements Cloneable, Comparable<RandomPermutation>{
-    /**
-     * Acts as an enum for code readability
-     */
-    private class Direction {
-        public static final int UP = 0;
-        public static final int DOWN = 1;
-        public static final int LEFT = 2;
-        public static final int RIGHT = 3;
-    }
-
     /** A two-dimensional matrix that represents the board. */
     private int[][] board;
 
@@ -32,7 +24,7 @@ public class RandomPermutation implements Cloneable, Comparable<RandomPermutatio
         board = new int[row][column];
         int count = 1;
         for (int i = 0; i < row; i++) {
-            for (int j = 0; j < row; j++) {
+            for (int j = 0; j < column; j++) {
                 board[i][j] = count;
                 count++;
             }
@@ -46,51 +38,62 @@ public class RandomPermutation implements Cloneable, Comparable<RandomPermutatio
         zeroColumn = column - 1;
     }
 
+    /**
+     * Constructs the RandomPermutation directly from a matrix, without
+     * filling in the winning position first. The matrix is not copied.
+     * @param board The matrix that represents the board
+     */
+    RandomPermutation(int[][] board) {
+        this.board = board;
+        for (int i = 0; i < board.length; i++) {
+            for (int j = 0; j < board[0].length; j++) {
+                if (board[i][j] == 0) {
+                    zeroRow = i;
+                    zeroColumn = j;
+                }
+            }
+        }
+    }
+
     /**
      * Returns a <code>String</code> representation of this <code>Board</code>
      * @return the String representation of this Board
      */
     public String toString() {
-        String string = "";
+        StringBuilder string = new StringBuilder(board.length * (board[0].length * 4 + 1));
         for (int i = 0; i < board.length; i++) {
             for(int j = 0; j < board[0].length; j++) {
-                string += "[" + board[i][j] + "]";
+                string.append('[').append(board[i][j]).append(']');
             }
-            string += "\n";
+            string.append('\n');
         }
-        return string;
+        return string.toString();
     }
 
     /**
      * Randomly shuffles the numbers around by moving the empty cell around
-     * and checking if it the new proposed position
-     * is within the indexes of the array
+     * 100 times, each time in one of the directions that stay within the
+     * board. See <b>BoardGenerator</b> for boards drawn uniformly instead.
      */
     public void shuffle() {
-        // The direction to move the empty cell
-        int direction;
-
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int[] directions = new int[Direction.COUNT];
         for (int i = 0; i < 100; i++) {
-            // Generate a direction to move the empty cell
-            Random rng = new Random();
-            direction = rng.nextInt(4);
-
-            // If possible to move empty cell up, do it
-            if (direction == Direction.UP && zeroRow != 0) {
-                move(Direction.UP);
-            } else if (direction == Direction.DOWN && zeroRow < board.length - 1) {
-                // If possible to move empty cell down, do it
-                move(Direction.DOWN);
-            } else if (direction == Direction.LEFT && zeroColumn != 0) {
-                // If possible to move empty cell left, do it
-                move(Direction.LEFT);
-            } else if (direction == Direction.RIGHT && zeroColumn < board[0].length - 1) {
-                // If possible to move empty cell right, do it
-                move(Direction.RIGHT);
-            } else {
-                // The direction generated is not possible, generate a new one
-                i--;
+            // only draw among the possible directions instead of retrying the others
+            int count = 0;
+            if (zeroRow != 0) {
+                directions[count++] = Direction.UP;
+            }
+            if (zeroRow < board.length - 1) {
+                directions[count++] = Direction.DOWN;
+            }
+            if (zeroColumn != 0) {
+                directions[count++] = Direction.LEFT;
+            }
+            if (zeroColumn < board[0].length - 1) {
+                directions[count++] = Direction.RIGHT;
             }
+            move(directions[random.nextInt(count)]);
         }
     }
 
@@ -144,6 +147,16 @@ public class RandomPermutation implements Cloneable, Comparable<RandomPermutatio
         return board[row][column];
     }
 
+    /** @return Returns the number of rows of the board */
+    public int getRows() {
+        return board.length;
+    }
+
+    /** @return Returns the number of columns of the board */
+    public int getColumns() {
+        return board[0].length;
+    }
+
     /** @return Returns the row where the zero is located */
     public int getZeroRow() {
         return zeroRow;
@@ -206,10 +219,9 @@ public class RandomPermutation implements Cloneable, Comparable<RandomPermutatio
             for (int j = 0; j < board[0].length; j++) {
                 if (board[i][j] != 0) {
                     // Calculate the goal position of this tile
-                    int row = (board[i][j] - 1) / 3;
-                    int column = (board[i][j] - 1) % 3;
+                    int row = (board[i][j] - 1) / board[0].length;
+                    int column = (board[i][j] - 1) % board[0].length;
                     manhattan += Math.abs(i - row) + Math.abs(j - column);
-                    int diff = Math.abs(i - row) + Math.abs(j - column);
                 }
             }
         }
@@ -222,15 +234,11 @@ public class RandomPermutation implements Cloneable, Comparable<RandomPermutatio
      */
     @Override
     protected RandomPermutation clone() {
-        RandomPermutation clone = new RandomPermutation(board.length, board[0].length);
+        int[][] copy = new int[board.length][];
         for (int i = 0; i < board.length; i++) {
-            for (int j = 0; j < board[0].length; j++) {
-                clone.board[i][j] = board[i][j];
-            }
+            copy[i] = board[i].clone();
         }
-        clone.zeroRow = getZeroRow();
-        clone.zeroColumn = getZeroColumn();
-        return clone;
+        return new RandomPermutation(copy);
     }
 
     /**
@@ -245,7 +253,7 @@ public class RandomPermutation implements Cloneable, Comparable<RandomPermutatio
 
     /** @return An iterable of all neighbouring board position */
     public Iterable<RandomPermutation> neighbours() {
-        PriorityQueue<RandomPermutation> neighbours = new PriorityQueue<>();
+        List<RandomPermutation> neighbours = new ArrayList<>(Direction.COUNT);
         RandomPermutation neighbour;
 
         if (zeroRow - 1 >= 0) {
@@ -277,16 +285,26 @@ public class RandomPermutation implements Cloneable, Comparable<RandomPermutatio
         return neighbours;
     }
 
+    /**
+     * Returns <b>true</b> if the other object is a board holding the same tiles in the same cells.
+     * @param o The other object to be compared
+     * @return true if both boards hold the same position
+     */
     @Override
     public boolean equals(Object o) {
-        RandomPermutation other = (RandomPermutation) o;
-        for (int i = 0; i < board.length; i++) {
-            for (int j = 0; j < board[0].length; j++) {
-                if (board[i][j] != other.board[i][j]) {
-                    return false;
-                }
-            }
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RandomPermutation)) {
+            return false;
         }
-        return true;
+        RandomPermutation other = (RandomPermutation) o;
+        return Arrays.deepEquals(board, other.board);
+    }
+
+    /** @return A hash code consistent with {@link #equals(Object)} */
+    @Override
+    public int hashCode() {
+        return Arrays.deepHashCode(board);
     }
 }
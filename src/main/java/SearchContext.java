@@ -0,0 +1,224 @@
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * The buffers a search needs, kept between solves so that a thread solving
+ * many boards does not allocate and grow them again for each one, along with
+ * the conditions that stop a search early: the cancellation of the job it
+ * runs for, and a deadline.
+ *
+ * A context belongs to one thread at a time. The solvers call
+ * {@link #checkpoint(long, int)} regularly, which throws a
+ * <b>CancellationException</b> once the search should stop, and records the
+ * progress of the search, which other threads may read to display it. A context may
+ * also hold a <b>MetricsSink</b>, which receives the metrics of every solve
+ * run with it. The open list of A* is an <b>IndexedHeap</b> unless another
+ * kind is given to the constructor, and the positions reached are kept in a
+ * <b>StateTable</b> on the heap unless another <b>StateMap</b> is given, such
+ * as an <b>OffHeapStateTable</b> for searches too large for the heap.
+ */
+public class SearchContext {
+
+    /** Buffers grown past this number of entries are dropped after a solve instead of cleared. */
+    private static final int RETAINED_CAPACITY = 1 << 16;
+
+    /** The positions reached by the current search. */
+    private StateMap reached;
+
+    /** True if the table of reached positions was given, and is cleared rather than dropped. */
+    private final boolean keepReached;
+
+    /** The nodes of the current search. */
+    private NodePool nodes = new NodePool();
+
+    /** Makes the open lists. */
+    private final Supplier<OpenList> openLists;
+
+    /** The open list of the current search. */
+    private OpenList open;
+
+    /** Scratch array receiving the tiles of a position. */
+    private int[] tiles = new int[0];
+
+    /** The job the search runs for; the search stops once it is done. */
+    private Future<?> job;
+
+    /** Set by another thread to stop the current search, see {@link #cancel()}. */
+    private volatile boolean cancelled;
+
+    /** The value of System.nanoTime() at which the search stops, if timed. */
+    private long deadline;
+
+    /** True if the search has a deadline. */
+    private boolean timed;
+
+    /** True if the last search was stopped by its deadline. */
+    private boolean timedOut;
+
+    /** The number of positions expanded by the search, as of its last checkpoint. */
+    private volatile long expansions;
+
+    /** The number of positions waiting to be expanded, as of the last checkpoint. */
+    private volatile int frontier;
+
+    /** Receives the metrics of the solves, or null if they are not measured. */
+    private MetricsSink sink;
+
+    /** Constructs a context whose open lists are binary heaps. */
+    public SearchContext() {
+        this(IndexedHeap::new);
+    }
+
+    /**
+     * Constructs a context with the given kind of open list.
+     * @param openLists makes an empty open list, e.g. <b>BucketQueue::new</b>
+     */
+    public SearchContext(Supplier<OpenList> openLists) {
+        this(openLists, new StateTable(), false);
+    }
+
+    /**
+     * Constructs a context keeping the positions reached in the given table,
+     * which it clears before each search but never replaces, so a table of
+     * fixed capacity bounds the size of the searches.
+     * @param openLists makes an empty open list, e.g. <b>BucketQueue::new</b>
+     * @param reached the table of reached positions, e.g. an <b>OffHeapStateTable</b>
+     */
+    public SearchContext(Supplier<OpenList> openLists, StateMap reached) {
+        this(openLists, reached, true);
+    }
+
+    /**
+     * Constructs a context.
+     * @param openLists makes an empty open list
+     * @param reached the table of reached positions
+     * @param keepReached true to clear the table between searches even when it has grown large
+     */
+    private SearchContext(Supplier<OpenList> openLists, StateMap reached, boolean keepReached) {
+        this.openLists = openLists;
+        this.reached = reached;
+        this.keepReached = keepReached;
+        open = openLists.get();
+    }
+
+    /**
+     * Prepares the context for a new search.
+     * @param job the job to watch for cancellation, or null
+     * @param timeout the time allowed to the search in nanoseconds, or 0 for no limit
+     */
+    public void begin(Future<?> job, long timeout) {
+        this.job = job;
+        timed = timeout > 0;
+        deadline = System.nanoTime() + timeout;
+        timedOut = false;
+        cancelled = false;
+        expansions = 0;
+        frontier = 0;
+        if (!keepReached && reached.capacity() > RETAINED_CAPACITY) {
+            reached = new StateTable();
+        } else {
+            reached.clear();
+        }
+        if (nodes.capacity() > RETAINED_CAPACITY) {
+            nodes = new NodePool();
+            open = openLists.get();
+        } else {
+            nodes.clear();
+            open.clear();
+        }
+    }
+
+    /**
+     * Stops the search if its job is done or its deadline has passed.
+     * @throws CancellationException if the search should stop
+     */
+    public void checkpoint() {
+        if (cancelled || job != null && job.isDone()) {
+            throw new CancellationException("The search was cancelled");
+        }
+        if (timed && System.nanoTime() - deadline > 0) {
+            timedOut = true;
+            throw new CancellationException("The search timed out");
+        }
+    }
+
+    /**
+     * Stops the current search at its next checkpoint. Unlike the other
+     * methods, this one may be called from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Records the progress of the search, then stops it if its job is done
+     * or its deadline has passed.
+     * @param expansions the number of positions expanded so far
+     * @param frontier the number of positions waiting to be expanded: the
+     * open list of A*, the depth of the current path of IDA*
+     * @throws CancellationException if the search should stop
+     */
+    public void checkpoint(long expansions, int frontier) {
+        this.expansions = expansions;
+        this.frontier = frontier;
+        checkpoint();
+    }
+
+    /** @return Returns the number of positions expanded by the search, as of its last checkpoint; safe from any thread */
+    public long expansions() {
+        return expansions;
+    }
+
+    /** @return Returns the size of the frontier of the search, as of its last checkpoint; safe from any thread */
+    public int frontier() {
+        return frontier;
+    }
+
+    /** @return Returns true if the last search was stopped by its deadline */
+    public boolean timedOut() {
+        return timedOut;
+    }
+
+    /**
+     * Sets the sink receiving the metrics of the solves run with this
+     * context, including the times of their phases, which are only measured
+     * when there is a sink.
+     * @param sink the sink, or null to stop measuring
+     */
+    public void setSink(MetricsSink sink) {
+        this.sink = sink;
+    }
+
+    /** @return Returns the sink receiving the metrics of the solves, or null */
+    public MetricsSink getSink() {
+        return sink;
+    }
+
+    /** @return Returns the empty table of the positions reached by the search */
+    StateMap reached() {
+        return reached;
+    }
+
+    /** @return Returns the empty pool of the nodes of the search */
+    NodePool nodes() {
+        return nodes;
+    }
+
+    /** @return Returns the empty open list of the search */
+    OpenList open() {
+        return open;
+    }
+
+    /**
+     * Returns a scratch array of the given length.
+     * @param length the number of cells of the board
+     * @return Returns the array, with unspecified contents
+     */
+    int[] tiles(int length) {
+        if (tiles.length != length) {
+            tiles = new int[length];
+        }
+        return tiles;
+    }
+}
@@ -0,0 +1,233 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A bounded cache of solutions for boards of one size, shared by threads.
+ * Entries are keyed by the packed position and hold the directions of the
+ * moves of the solution; the least recently used ones are evicted once the
+ * cache is full. The cache is split in segments, each locked on its own, so
+ * that threads looking up different boards rarely wait for each other.
+ *
+ * On square boards, reflecting a board across its main diagonal and
+ * relabelling the tiles so that the winning position stays the same gives a
+ * board with the same number of moves to solve, the moves being reflected
+ * too: up becomes left and down becomes right. Both boards share the entry
+ * of the smaller of their two keys.
+ *
+ * Positions are packed by <b>PackedBoard</b>, so boards are limited to 16 cells.
+ */
+public class SolutionCache {
+
+    /** The number of segments, a power of two. */
+    private static final int SEGMENTS = 16;
+
+    /** The encoding of the boards. */
+    private final PackedBoard packed;
+
+    /** True if boards are reflected to share entries with their reflection. */
+    private final boolean symmetric;
+
+    /** The label of each tile after a reflection across the main diagonal, indexed by tile. */
+    private final int[] reflectedTiles;
+
+    /** The least recently used entries first, in each segment. */
+    private final Map<Long, byte[]>[] segments;
+
+    /** The number of lookups that found their board. */
+    private final LongAdder hits = new LongAdder();
+
+    /** The number of lookups that did not find their board. */
+    private final LongAdder misses = new LongAdder();
+
+    /** The number of entries evicted to make room for others. */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructs an empty cache.
+     * @param rows The number of rows of the boards
+     * @param columns The number of columns of the boards
+     * @param capacity The largest number of entries kept, split evenly among the segments
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public SolutionCache(int rows, int columns, int capacity) {
+        packed = new PackedBoard(rows, columns);
+        symmetric = rows == columns;
+        reflectedTiles = new int[rows * columns];
+        for (int tile = 1; tile < reflectedTiles.length; tile++) {
+            int goal = tile - 1;
+            reflectedTiles[tile] = (goal % columns) * rows + goal / columns + 1;
+        }
+
+        int segmentCapacity = Math.max(1, capacity / SEGMENTS);
+        segments = new Map[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+                    if (size() > segmentCapacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+
+    /**
+     * Returns the solution of a board, solving it with
+     * {@link PuzzleSolver#solve(RandomPermutation)} if it is not in the cache.
+     * @param board the position to solve, not modified
+     * @return Returns the solver, holding the solution
+     */
+    public PuzzleSolver solve(RandomPermutation board) {
+        return solve(board, PuzzleSolver::solve);
+    }
+
+    /**
+     * Returns the solution of a board, solving it with the given solver if it
+     * is not in the cache. Two threads missing the same board at once both
+     * solve it.
+     * @param board the position to solve, not modified
+     * @param solver solves a board that is not in the cache
+     * @return Returns the solver, holding the solution
+     */
+    public PuzzleSolver solve(RandomPermutation board, Function<RandomPermutation, PuzzleSolver> solver) {
+        long position = packed.encode(board);
+        long reflection = symmetric ? reflect(position) : position;
+        boolean reflected = Long.compareUnsigned(reflection, position) < 0;
+        long key = reflected ? reflection : position;
+        Map<Long, byte[]> segment = segment(key);
+
+        byte[] moves;
+        synchronized (segment) {
+            moves = segment.get(key);
+        }
+        if (moves != null) {
+            hits.increment();
+            return new CachedSolver(board, moves, reflected);
+        }
+        misses.increment();
+
+        PuzzleSolver solved = solver.apply(board);
+        MoveSequence path = solved.path();
+        moves = new byte[path.length()];
+        for (int i = 0; i < moves.length; i++) {
+            int direction = path.move(i);
+            moves[i] = (byte) (reflected ? reflect(direction) : direction);
+        }
+        synchronized (segment) {
+            segment.put(key, moves);
+        }
+        return solved;
+    }
+
+    /**
+     * Reflects a packed position across the main diagonal of a square board.
+     * @param position the packed position
+     * @return Returns the packed reflection, with relabelled tiles
+     */
+    private long reflect(long position) {
+        int side = packed.getRows();
+        long reflection = 0;
+        for (int index = 0; index < packed.size(); index++) {
+            int tile = PackedBoard.tile(position, index);
+            int mirror = (index % side) * side + index / side;
+            reflection |= (long) reflectedTiles[tile] << (mirror * 4);
+        }
+        return reflection;
+    }
+
+    /**
+     * Reflects a direction across the main diagonal.
+     * @param direction one of the four directions
+     * @return Returns LEFT for UP, RIGHT for DOWN and vice versa
+     */
+    private static int reflect(int direction) {
+        return direction ^ 2;
+    }
+
+    /**
+     * Returns the segment holding a key.
+     * @param key the packed position
+     * @return Returns the segment
+     */
+    private Map<Long, byte[]> segment(long key) {
+        return segments[(int) ((key * 0x9E3779B97F4A7C15L) >>> 60) & (SEGMENTS - 1)];
+    }
+
+    /** @return Returns the number of lookups that found their board */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /** @return Returns the number of lookups that did not find their board */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /** @return Returns the number of entries evicted to make room for others */
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /** @return Returns the number of entries in the cache */
+    public int size() {
+        int size = 0;
+        for (Map<Long, byte[]> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /** The solution of a board found in the cache, replayed from its moves when asked for. */
+    private static class CachedSolver implements PuzzleSolver {
+
+        /** The initial board. */
+        private final RandomPermutation board;
+
+        /** The directions of the moves, reflected if the entry is the one of the reflection. */
+        private final byte[] moves;
+
+        /** True if the moves have to be reflected back. */
+        private final boolean reflected;
+
+        /**
+         * Constructs the solution of a board.
+         * @param board the initial board
+         * @param moves the moves of the cache entry
+         * @param reflected true if the entry is the one of the reflection of the board
+         */
+        CachedSolver(RandomPermutation board, byte[] moves, boolean reflected) {
+            this.board = board.clone();
+            this.moves = moves;
+            this.reflected = reflected;
+        }
+
+        /** @return The number of moves of the solution. */
+        @Override
+        public int moves() {
+            return moves.length;
+        }
+
+        /** @return The moves of the solution. */
+        @Override
+        public MoveSequence path() {
+            int[] directions = new int[moves.length];
+            for (int i = 0; i < moves.length; i++) {
+                directions[i] = reflected ? reflect(moves[i]) : moves[i];
+            }
+            return new MoveSequence(board, directions, directions.length);
+        }
+
+        /** @return Always 0, nothing was searched. */
+        @Override
+        public long expansions() {
+            return 0;
+        }
+    }
+}
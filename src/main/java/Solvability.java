@@ -0,0 +1,132 @@
+/**
+ * Tells whether a board can be solved, in time proportional to its number of
+ * cells. Only half of the arrangements of the tiles can reach the winning
+ * position; a search started from the other half explores every reachable
+ * position before giving up, so boards that do not come from
+ * {@link RandomPermutation#shuffle()} are checked first.
+ *
+ * Read the board as the permutation sending each cell to the goal cell of
+ * its tile, the empty cell going to the last cell. Every move swaps the empty
+ * cell with a neighbour, which flips the parity of the permutation and the
+ * parity of the distance of the empty cell to the last cell. Both are even in
+ * the winning position, so a board is solvable exactly when they have the
+ * same parity. This is the classic rule counting inversions, plus the row of
+ * the empty cell on boards of even width, but the parity of a permutation is
+ * computed from its cycles in a single pass instead of counting inversions.
+ */
+public final class Solvability {
+
+    private Solvability() {
+    }
+
+    /**
+     * Tells whether a board can be solved.
+     * @param board the board
+     * @return Returns true if the winning position can be reached
+     */
+    public static boolean isSolvable(RandomPermutation board) {
+        int columns = board.getColumns();
+        int[] tiles = new int[board.getRows() * columns];
+        for (int index = 0; index < tiles.length; index++) {
+            tiles[index] = board.getType(index / columns, index % columns);
+        }
+        return isSolvable(tiles, columns);
+    }
+
+    /**
+     * Tells whether a board can be solved.
+     * @param tiles the tiles in row-major order, 0 for the empty cell
+     * @param columns the number of columns of the board
+     * @return Returns true if the winning position can be reached
+     */
+    public static boolean isSolvable(int[] tiles, int columns) {
+        int cells = tiles.length;
+        boolean[] seen = new boolean[cells];
+        int parity = 0;
+        int zero = 0;
+        for (int start = 0; start < cells; start++) {
+            if (seen[start]) {
+                continue;
+            }
+            // a cycle of length k is k - 1 transpositions
+            for (int index = start; !seen[index]; parity ^= 1) {
+                seen[index] = true;
+                int tile = tiles[index];
+                if (tile == 0) {
+                    zero = index;
+                }
+                index = tile == 0 ? cells - 1 : tile - 1;
+            }
+            parity ^= 1;
+        }
+        return parity == distanceParity(zero, cells, columns);
+    }
+
+    /**
+     * Tells whether a packed board can be solved, without allocating.
+     * @param position the board packed by <b>PackedBoard</b>
+     * @param packed the encoding of the board
+     * @return Returns true if the winning position can be reached
+     */
+    public static boolean isSolvable(long position, PackedBoard packed) {
+        int cells = packed.size();
+        int seen = 0;
+        int parity = 0;
+        int zero = 0;
+        for (int start = 0; start < cells; start++) {
+            if ((seen >>> start & 1) != 0) {
+                continue;
+            }
+            for (int index = start; (seen >>> index & 1) == 0; parity ^= 1) {
+                seen |= 1 << index;
+                int tile = PackedBoard.tile(position, index);
+                if (tile == 0) {
+                    zero = index;
+                }
+                index = tile == 0 ? cells - 1 : tile - 1;
+            }
+            parity ^= 1;
+        }
+        return parity == distanceParity(zero, cells, packed.getColumns());
+    }
+
+    /**
+     * Moves the solvable boards of an array to its front, keeping their order.
+     * @param positions boards packed by <b>PackedBoard</b>
+     * @param length the number of boards to filter
+     * @param packed the encoding of the boards
+     * @return Returns the number of solvable boards, now found at the start of the array
+     */
+    public static int filter(long[] positions, int length, PackedBoard packed) {
+        int kept = 0;
+        for (int i = 0; i < length; i++) {
+            if (isSolvable(positions[i], packed)) {
+                positions[kept++] = positions[i];
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Fails fast on a board that cannot be solved.
+     * @param board the board
+     * @throws IllegalArgumentException if the winning position cannot be reached
+     */
+    public static void require(RandomPermutation board) {
+        if (!isSolvable(board)) {
+            throw new IllegalArgumentException("The board cannot be solved");
+        }
+    }
+
+    /**
+     * Returns the parity of the distance from a cell to the last cell.
+     * @param index the row-major index of the cell
+     * @param cells the number of cells
+     * @param columns the number of columns
+     * @return Returns 0 if the distance is even, 1 if odd
+     */
+    private static int distanceParity(int index, int cells, int columns) {
+        int last = cells - 1;
+        return (last / columns - index / columns + last % columns - index % columns) & 1;
+    }
+}
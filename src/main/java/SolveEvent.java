@@ -0,0 +1,77 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A Java Flight Recorder event holding the metrics of a solve, committed by
+ * {@link #SINK}. The event is only built when a recording has it enabled, so
+ * the sink costs a single check otherwise.
+ */
+@Name("eightpuzzle.Solve")
+@Label("Solve")
+@Category("Eight Puzzle")
+@Description("The metrics of a solve")
+public class SolveEvent extends Event {
+
+    /** Commits an event for every solve while a recording has the event enabled. */
+    public static final MetricsSink SINK = SolveEvent::commit;
+
+    /** The checks done before building an event. */
+    private static final SolveEvent PROBE = new SolveEvent();
+
+    @Label("Solver")
+    String solver;
+
+    @Label("Generated")
+    long generated;
+
+    @Label("Expanded")
+    long expanded;
+
+    @Label("Duplicates")
+    long duplicates;
+
+    @Label("Heuristic Evaluations")
+    long evaluations;
+
+    @Label("Max Open")
+    long maxOpen;
+
+    @Label("Search Wall Time")
+    @Timespan
+    long searchWall;
+
+    @Label("Search CPU Time")
+    @Timespan
+    long searchCpu;
+
+    @Label("Total Wall Time")
+    @Timespan
+    long totalWall;
+
+    /**
+     * Commits the event of a solve, if enabled.
+     * @param metrics the metrics of the solve
+     */
+    private static void commit(SolverMetrics metrics) {
+        if (!PROBE.isEnabled()) {
+            return;
+        }
+        SolveEvent event = new SolveEvent();
+        event.solver = metrics.getSolver();
+        event.generated = metrics.getGenerated();
+        event.expanded = metrics.getExpanded();
+        event.duplicates = metrics.getDuplicates();
+        event.evaluations = metrics.getEvaluations();
+        event.maxOpen = metrics.getMaxOpen();
+        event.searchWall = metrics.getWallTime(SolverMetrics.Phase.SEARCH);
+        event.searchCpu = metrics.getCpuTime(SolverMetrics.Phase.SEARCH);
+        for (SolverMetrics.Phase phase : SolverMetrics.Phase.values()) {
+            event.totalWall += metrics.getWallTime(phase);
+        }
+        event.commit();
+    }
+}
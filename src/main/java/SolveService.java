@@ -0,0 +1,308 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves solutions over a line-delimited socket protocol on the loopback
+ * interface. Each request is one line holding the number of rows, the number
+ * of columns and the tiles in row-major order, 0 being the empty cell, e.g.
+ * <code>3 3 1 2 3 4 5 6 0 7 8</code>. Each answer is one line:
+ * <ul>
+ * <li><code>OK moves letters</code>, the letters being the directions the
+ * empty cell moves in, U, D, L or R, e.g. <code>OK 2 RR</code></li>
+ * <li><code>BUSY</code> if every processor is already solving a board</li>
+ * <li><code>TIMEOUT</code> if no solution was found in time</li>
+ * <li><code>CANCELLED</code> if the request was interrupted, e.g. because
+ * the service is shutting down; unlike BUSY, it is not worth retrying</li>
+ * <li><code>ERROR message</code> if the request is not a valid board, or
+ * one that cannot be solved, or if the service is closed</li>
+ * </ul>
+ *
+ * Every connection is handled by its own virtual thread, but the searches
+ * themselves are CPU bound: they run on a fixed pool of platform threads, one
+ * per processor, so that they never hold the carriers of the virtual threads.
+ * A request that cannot get one of these threads within a short wait is
+ * rejected with BUSY instead of queueing up. Solutions of boards of up to 16
+ * cells are kept in a <b>SolutionCache</b>, so a board asked for again is
+ * answered without searching. The service binds its port when constructed
+ * and accepts connections once {@link #start()} is called. Usage:
+ * <code>java SolveService [port [timeout-ms]]</code>
+ */
+public class SolveService implements AutoCloseable {
+
+    /** The port listened to by default. */
+    public static final int DEFAULT_PORT = 8080;
+
+    /** The time allowed to a search by default, in milliseconds. */
+    public static final long DEFAULT_TIMEOUT = 10_000;
+
+    /** How long a request waits for a processor before it is rejected, in milliseconds. */
+    private static final long ADMISSION_WAIT = 50;
+
+    /** The largest number of cells accepted in a board. */
+    private static final int MAX_CELLS = 64;
+
+    /** The number of solutions cached for each board size. */
+    private static final int CACHE_CAPACITY = 100_000;
+
+    /** The socket accepting connections. */
+    private final ServerSocket server;
+
+    /** One permit per search allowed to run at once. */
+    private final Semaphore searches;
+
+    /** The threads running the searches. */
+    private final ExecutorService searchers;
+
+    /** The time allowed to a search, in nanoseconds. */
+    private final long timeout;
+
+    /** The search buffers of each thread of the searchers. */
+    private final ThreadLocal<SearchContext> contexts = ThreadLocal.withInitial(SearchContext::new);
+
+    /** The solutions found, for each board size, by rows times 65536 plus columns. */
+    private final Map<Integer, SolutionCache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * Binds the port on the loopback interface, with one search per processor.
+     * @param port the port to listen to, 0 for any free port
+     * @param timeout the time allowed to a search, in milliseconds
+     * @throws IOException if the port cannot be bound
+     */
+    public SolveService(int port, long timeout) throws IOException {
+        this(port, timeout, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Binds the port on the loopback interface.
+     * @param port the port to listen to, 0 for any free port
+     * @param timeout the time allowed to a search, in milliseconds
+     * @param parallelism the number of searches allowed to run at once
+     * @throws IOException if the port cannot be bound
+     */
+    public SolveService(int port, long timeout, int parallelism) throws IOException {
+        this.timeout = TimeUnit.MILLISECONDS.toNanos(timeout);
+        searches = new Semaphore(parallelism);
+        searchers = Executors.newFixedThreadPool(parallelism);
+        server = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * Starts accepting connections, on a virtual thread of its own.
+     * @return Returns this service
+     */
+    public SolveService start() {
+        Thread.ofVirtual().name("SolveService-accept").start(this::accept);
+        return this;
+    }
+
+    /** @return Returns the port the service listens to */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /** Accepts connections until the service is closed, each on its own virtual thread. */
+    private void accept() {
+        try {
+            while (true) {
+                Socket socket = server.accept();
+                Thread.ofVirtual().start(() -> serve(socket));
+            }
+        } catch (SocketException e) {
+            // closed
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Answers the requests of a connection until the client closes it.
+     * @param socket the connection
+     */
+    private void serve(Socket socket) {
+        try (socket;
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.isBlank()) {
+                    out.println(answer(line));
+                }
+            }
+        } catch (IOException e) {
+            // the client went away, nothing to answer
+        }
+    }
+
+    /**
+     * Answers one request.
+     * @param request the line sent by the client
+     * @return Returns the line to send back
+     */
+    String answer(String request) {
+        RandomPermutation board;
+        try {
+            board = parse(request);
+        } catch (IllegalArgumentException e) {
+            return "ERROR " + e.getMessage();
+        }
+
+        try {
+            if (!searches.tryAcquire(ADMISSION_WAIT, TimeUnit.MILLISECONDS)) {
+                return "BUSY";
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "CANCELLED";
+        }
+        // the search stops at its next checkpoint once this future is cancelled
+        CompletableFuture<String> search = new CompletableFuture<>();
+        try {
+            searchers.execute(() -> {
+                try {
+                    search.complete(search(board, search));
+                } catch (Throwable e) {
+                    search.completeExceptionally(e);
+                } finally {
+                    searches.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            searches.release();
+            return "ERROR The service is closed";
+        }
+        try {
+            // the virtual thread unmounts while it waits
+            return search.get();
+        } catch (InterruptedException e) {
+            search.cancel(true);
+            Thread.currentThread().interrupt();
+            return "CANCELLED";
+        } catch (CancellationException e) {
+            return "CANCELLED";
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            return "ERROR " + (cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Solves a board on one of the searchers.
+     * @param board the board
+     * @param job the future of the answer, whose cancellation stops the search
+     * @return Returns the answer to send back
+     */
+    private String search(RandomPermutation board, CompletableFuture<String> job) {
+        SearchContext context = contexts.get();
+        context.begin(job, timeout);
+        try {
+            int rows = board.getRows();
+            int columns = board.getColumns();
+            PuzzleSolver solver;
+            if (PackedBoard.fits(rows, columns)) {
+                SolutionCache cache = caches.computeIfAbsent((rows << 16) + columns,
+                        size -> new SolutionCache(rows, columns, CACHE_CAPACITY));
+                solver = cache.solve(board, b -> solve(b, context));
+            } else {
+                solver = solve(board, context);
+            }
+            return "OK " + solver.moves() + " " + solver.path().letters();
+        } catch (CancellationException e) {
+            return context.timedOut() ? "TIMEOUT" : "CANCELLED";
+        }
+    }
+
+    /**
+     * Solves a board with A* up to 3x3, and IDA* with the linear-conflict heuristic above.
+     * @param board the board
+     * @param context the buffers and deadline of the search
+     * @return Returns the solver, holding the solution
+     */
+    private static PuzzleSolver solve(RandomPermutation board, SearchContext context) {
+        int rows = board.getRows();
+        int columns = board.getColumns();
+        return rows * columns <= 9
+                ? new Solver(board, new ManhattanHeuristic(rows, columns), context)
+                : new IDASolver(board, new LinearConflictHeuristic(rows, columns), context);
+    }
+
+    /**
+     * Reads a board from a request.
+     * @param request the number of rows, of columns, then the tiles, separated by spaces
+     * @return Returns the board
+     * @throws IllegalArgumentException if the request is not a valid board, or cannot be solved
+     */
+    static RandomPermutation parse(String request) {
+        String[] fields = request.trim().split("\\s+");
+        int[] numbers = new int[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            try {
+                numbers[i] = Integer.parseInt(fields[i]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a number: " + fields[i]);
+            }
+        }
+        if (numbers.length < 2 || numbers[0] < 2 || numbers[1] < 2 || numbers[0] * numbers[1] > MAX_CELLS) {
+            throw new IllegalArgumentException("Expected rows and columns from 2 up to " + MAX_CELLS + " cells");
+        }
+        int rows = numbers[0];
+        int columns = numbers[1];
+        if (numbers.length != 2 + rows * columns) {
+            throw new IllegalArgumentException("Expected " + rows * columns + " tiles");
+        }
+        boolean[] seen = new boolean[rows * columns];
+        int[][] cells = new int[rows][columns];
+        for (int index = 0; index < rows * columns; index++) {
+            int tile = numbers[2 + index];
+            if (tile < 0 || tile >= seen.length || seen[tile]) {
+                throw new IllegalArgumentException("The tiles must be 0 to " + (seen.length - 1) + " once each");
+            }
+            seen[tile] = true;
+            cells[index / columns][index % columns] = tile;
+        }
+        RandomPermutation board = new RandomPermutation(cells);
+        Solvability.require(board);
+        return board;
+    }
+
+    /** Stops accepting connections and stops the searchers once their searches are done. */
+    @Override
+    public void close() throws IOException {
+        server.close();
+        searchers.shutdown();
+    }
+
+    /**
+     * Java programs start by executing the main method. Here, this main method
+     * starts the service and keeps it running.
+     *
+     * @param args the command line arguments
+     * @throws IOException if the port cannot be bound
+     * @throws InterruptedException if interrupted while serving
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        long timeout = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_TIMEOUT;
+        SolveService service = new SolveService(port, timeout).start();
+        System.out.println("Listening on localhost:" + service.getPort());
+        Thread.currentThread().join();
+    }
+}
@@ -1,89 +1,238 @@
-import java.util.Stack;
-import java.util.PriorityQueue;
-
-public class Solver {
-    /** Represents a state of the game */
-    private class State implements Comparable<State>{
-
-        /** The board position. */
-        RandomPermutation position;
-
-        /** The number of moves to reach the board position. */
-        int moves;
-
-        /** The previous state of the game. */
-        State previous;
-
-        /**
-         * Constructs an instance of a game state
-         * @param position represents the current board position
-         * @param moves the number of moves needed to reach this board position from the initial state
-         * @param previous the previous state.
-         */
-        public State(RandomPermutation position, int moves, State previous) {
-            this.position = position;
-            this.moves = moves;
-            this.previous = previous;
-        }
+/**
+ * Solves a board using the A* search algorithm, by default with the
+ * Manhattan heuristic.
+ * Every generated state is kept in memory, packed in a <b>long</b>, so boards
+ * are limited to 16 cells. See <b>IDASolver</b> for a solver of boards of any
+ * size that runs in memory proportional to the length of the solution.
+ *
+ * States are nodes of a <b>NodePool</b>, found by position through a
+ * <b>StateMap</b> and ordered by an <b>OpenList</b>, by default an
+ * <b>IndexedHeap</b>. When a state still
+ * in the open list is reached again with fewer moves, its cost is lowered in
+ * place. These buffers come from the <b>SearchContext</b>, so a thread that
+ * reuses its context allocates nothing while searching once the buffers have
+ * grown; only the solution is allocated, as a <b>MoveSequence</b>.
+ *
+ * Given a weight above 1, the search is Weighted A*: the estimate of every
+ * state is multiplied by the weight, which leads the search to the goal
+ * sooner, and the solution has at most the weight times the minimum number
+ * of moves. See <b>AnytimeSolver</b> for a search that then keeps improving
+ * its solution.
+ */
+public class Solver implements PuzzleSolver {
 
-        /**
-         * Used to compare which of the two states are closer to the goal state according to the Manhattan heuristic
-         * @param state the state to compare this to.
-         * @return A negative integer, zero, or a positive integer if this object is less than, equal to, or greater
-         */
-        @Override
-        public int compareTo(State state) {
-            return Integer.compare(this.position.manhattan() + this.moves, state.position.manhattan() + state.moves);
-        }
-    }
+    /** The encoding used for the positions explored by the search. */
+    private final PackedBoard packed;
+
+    /** The moves of a solution to an instance of the game. */
+    private MoveSequence path;
+
+    /** The number of positions expanded by the search. */
+    private long expansions;
+
+    /** What the search did, see {@link #metrics()}. */
+    private final SolverMetrics metrics;
 
-    /** A list of board positions corresponding to a solution to an instance of the game. */
-    private Stack<RandomPermutation> solution;
+    /** The factor applied to the estimates, 1 for A*. */
+    private final double weight;
+
+    /** The number of expansions between two checks of whether the search should stop. */
+    private static final int CHECK_INTERVAL = 1 << 10;
 
     /**
      * Constructor that finds a solution to the initial board.
      * @param board the position that the board is currently in.
      */
     public Solver(RandomPermutation board) {
-        State initial = new State(board, 0, null);
-        PriorityQueue<State> queue = new PriorityQueue<>();
-        queue.add(initial);
-
-        // enqueue neighbouring positions if initial state isn't goal state
-        if (queue.peek().position.hamming() != 0) {
-            State state = queue.remove();
-            for (RandomPermutation neighbour : state.position.neighbours()) {
-                State neighbouringState = new State(neighbour, state.moves + 1, state);
-                queue.add(neighbouringState);
-            }
+        this(board, new ManhattanHeuristic(board.getRows(), board.getColumns()));
+    }
+
+    /**
+     * Constructor that finds a solution to the initial board using the given heuristic.
+     * @param board the position that the board is currently in.
+     * @param heuristic an admissible heuristic for boards of this size
+     */
+    public Solver(RandomPermutation board, Heuristic heuristic) {
+        this(board, heuristic, new SearchContext());
+    }
+
+    /**
+     * Constructor that finds a solution to the initial board, reusing the
+     * buffers of a context and stopping when the context says so.
+     * @param board the position that the board is currently in.
+     * @param heuristic an admissible heuristic for boards of this size
+     * @param context the buffers and stop conditions of the search, prepared by {@link SearchContext#begin}
+     * @throws IllegalArgumentException if the board cannot be solved
+     * @throws java.util.concurrent.CancellationException if the search was cancelled or timed out
+     * @throws IllegalStateException if the table of reached positions of the context is full
+     */
+    public Solver(RandomPermutation board, Heuristic heuristic, SearchContext context) {
+        this(board, heuristic, context, 1);
+    }
+
+    /**
+     * Constructor that finds a solution to the initial board with Weighted
+     * A*, of at most <b>weight</b> times the minimum number of moves.
+     * @param board the position that the board is currently in.
+     * @param heuristic an admissible heuristic for boards of this size
+     * @param context the buffers and stop conditions of the search, prepared by {@link SearchContext#begin}
+     * @param weight the factor applied to the estimates, at least 1; 1 finds an optimal solution
+     * @throws IllegalArgumentException if the board cannot be solved, or the weight is below 1
+     * @throws java.util.concurrent.CancellationException if the search was cancelled or timed out
+     * @throws IllegalStateException if the table of reached positions of the context is full
+     */
+    public Solver(RandomPermutation board, Heuristic heuristic, SearchContext context, double weight) {
+        if (!(weight >= 1)) {
+            throw new IllegalArgumentException("The weight must be at least 1: " + weight);
+        }
+        Solvability.require(board);
+        this.weight = weight;
+        metrics = new SolverMetrics(weight == 1 ? "A*" : "Weighted A*");
+        // phases are only timed for a sink, the counts are kept in locals either way
+        MetricsSink sink = context.getSink();
+        if (sink != null) {
+            metrics.start();
+        }
+        packed = new PackedBoard(board.getRows(), board.getColumns());
+        long goal = packed.goal();
+        long position = packed.encode(board);
+
+        // the node of each position reached, holding the best number of moves found so far
+        StateMap reached = context.reached();
+        NodePool nodes = context.nodes();
+        OpenList open = context.open();
+        // the tiles of the state being expanded, each neighbour is evaluated by a move and its undo
+        int[] tiles = context.tiles(packed.size());
+        packed.unpack(position, tiles);
+        int estimate = heuristic.estimate(tiles);
+        int root = nodes.add(position, packed.zeroIndex(position), 0, estimate, heuristic.state(tiles), -1);
+        reached.put(position, root);
+        open.push(root, weigh(estimate), 0);
+        long generated = 0;
+        long duplicates = 0;
+        int maxOpen = 1;
+        if (sink != null) {
+            metrics.end(SolverMetrics.Phase.INITIALIZE);
+            metrics.start();
         }
 
-        while((queue.peek().position.hamming() != 0)) {
-            State state = queue.remove();
-            for (RandomPermutation neighbour : state.position.neighbours()) {
-                // don't add a state if the neighbouring position is the same as the previous state position
-                if (!neighbour.equals(state.previous.position)) {
-                    State neighbouringState = new State(neighbour, state.moves + 1, state);
-                    queue.add(neighbouringState);
+        int node;
+        while (nodes.position(node = open.pop()) != goal) {
+            if (++expansions % CHECK_INTERVAL == 0) {
+                context.checkpoint(expansions, open.size());
+            }
+            position = nodes.position(node);
+            int zero = nodes.zero(node);
+            int moves = nodes.moves(node) + 1;
+            estimate = nodes.estimate(node);
+            int state = nodes.state(node);
+            packed.unpack(position, tiles);
+            for (int direction = 0; direction < Direction.COUNT; direction++) {
+                int target = packed.target(zero, direction);
+                if (target < 0) {
+                    continue;
+                }
+                long neighbour = PackedBoard.slide(position, zero, target);
+                generated++;
+                int child = reached.get(neighbour);
+                if (child == StateMap.MISSING) {
+                    // a single tile moves, so the heuristic is updated from the parent instead of recomputed
+                    tiles[zero] = tiles[target];
+                    tiles[target] = 0;
+                    int childEstimate = heuristic.update(estimate, state, tiles, target, zero);
+                    int childState = heuristic.advance(state, tiles, target, zero);
+                    tiles[target] = tiles[zero];
+                    tiles[zero] = 0;
+                    child = nodes.add(neighbour, target, moves, childEstimate, childState, node);
+                    reached.put(neighbour, child);
+                    open.push(child, moves + weigh(childEstimate), moves);
+                } else if (moves < nodes.moves(child)) {
+                    // a shorter path, lower the cost in place or reopen the state
+                    nodes.relink(child, moves, node);
+                    if (open.contains(child)) {
+                        open.decrease(child, moves + weigh(nodes.estimate(child)), moves);
+                    } else {
+                        open.push(child, moves + weigh(nodes.estimate(child)), moves);
+                    }
+                } else {
+                    duplicates++;
                 }
             }
+            maxOpen = Math.max(maxOpen, open.size());
+        }
+        metrics.generated = generated;
+        metrics.expanded = expansions;
+        metrics.duplicates = duplicates;
+        // every node is evaluated once, when it is created
+        metrics.evaluations = nodes.size();
+        metrics.maxOpen = maxOpen;
+        metrics.stored = nodes.size();
+        if (sink != null) {
+            metrics.end(SolverMetrics.Phase.SEARCH);
+            metrics.start();
         }
 
-        solution = new Stack<>();
-        State state = queue.remove();
-        while(state.previous != null) {
-            solution.push(state.position);
-            state = state.previous;
+        path = path(board, packed, nodes, node);
+        if (sink != null) {
+            metrics.end(SolverMetrics.Phase.SOLUTION);
+            sink.record(metrics);
         }
     }
 
-    /** @return The minimum number of moves to solve the initial board. */
+    /**
+     * Applies the weight to an estimate.
+     * @param estimate the estimate of a state
+     * @return Returns the estimate, times the weight rounded down
+     */
+    private int weigh(int estimate) {
+        return weight == 1 ? estimate : (int) (weight * estimate);
+    }
+
+    /**
+     * Rebuilds the moves that lead to a node, following the parents back to
+     * the root. The move into each node is read from where its empty cell
+     * came from.
+     * @param board the initial board
+     * @param packed the encoding of the positions
+     * @param nodes the nodes of the search
+     * @param node the last node of the path
+     * @return Returns the moves from the initial board to the node
+     */
+    static MoveSequence path(RandomPermutation board, PackedBoard packed, NodePool nodes, int node) {
+        // count the links rather than trust the moves of the node, an ancestor may have been relinked since
+        int length = 0;
+        for (int link = node; nodes.parent(link) >= 0; link = nodes.parent(link)) {
+            length++;
+        }
+        int[] directions = new int[length];
+        for (int i = length - 1; i >= 0; i--) {
+            int parent = nodes.parent(node);
+            directions[i] = packed.direction(nodes.zero(parent), nodes.zero(node));
+            node = parent;
+        }
+        return new MoveSequence(board, directions, length);
+    }
+
+    /** @return The number of moves of the solution, the minimum one unless weighted. */
+    @Override
     public int moves() {
-        return solution.size();
+        return path.length();
+    }
+
+    /** @return The moves of the solution. */
+    @Override
+    public MoveSequence path() {
+        return path;
+    }
+
+    /** @return The number of positions whose neighbours were generated during the search. */
+    @Override
+    public long expansions() {
+        return expansions;
     }
 
-    /** @return An iterable of RandomPermutation positions in solution. */
-    public Stack<RandomPermutation> solution() {
-        return solution;
+    /** @return What the search did; the times are only measured when the context has a sink. */
+    public SolverMetrics metrics() {
+        return metrics;
     }
 }
@@ -0,0 +1,350 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Checks the solvers against each other and against the exact distances of
+ * <b>DistanceTable</b>. On the same seeded 3x3 boards, every optimal solver
+ * must find a solution of exactly the distance of the board, whose moves lead
+ * to the winning position, and Weighted A* one of at most its weight times
+ * that distance. The ways a search is stopped are then exercised on 4x4
+ * boards: timeouts, cancellation and closing of <b>BatchSolver</b>,
+ * interruption of <b>ParallelSolver</b>, and the TIMEOUT, BUSY, CANCELLED
+ * and ERROR answers of <b>SolveService</b>. Prints one line per check and
+ * exits with status 1 if any failed. Usage:
+ * <code>java SolverCheck [boards [seed]]</code>
+ */
+public class SolverCheck {
+
+    /** The time a stopped search is given to reach its next checkpoint, in milliseconds. */
+    private static final long STOP_WAIT = 5000;
+
+    /** The weights Weighted A* is checked with. */
+    private static final double[] WEIGHTS = {1.5, 2, 3};
+
+    /** The number of failed checks. */
+    private static int failures;
+
+    /**
+     * Java programs start by executing the main method. Here, this main method
+     * runs every check and prints the results.
+     *
+     * @param args the command line arguments
+     * @throws Exception if a check cannot be run
+     */
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+
+        List<RandomPermutation> boards = new BoardGenerator(3, 3, seed).boards(count).toList();
+        DistanceTable table = DistanceTable.get(3, 3);
+        Heuristic heuristic = new ManhattanHeuristic(3, 3);
+        checkOptimal("A*", boards, table, board -> new Solver(board, heuristic));
+        checkOptimal("IDA*", boards, table, board -> new IDASolver(board, heuristic));
+        checkOptimal("bidirectional", boards, table, BidirectionalSolver::new);
+        checkOptimal("HDA*", boards, table, board -> new ParallelSolver(board, heuristic, 4));
+        checkOptimal("ARA*", boards, table, board -> {
+            AnytimeSolver solver = new AnytimeSolver(board, heuristic, 0, TimeUnit.SECONDS, null);
+            return solver.isOptimal() ? solver : null;
+        });
+        checkOptimal("distance table", boards, table, board -> new DistanceSolver(board, table));
+        for (double weight : WEIGHTS) {
+            checkWeighted(weight, boards, table, heuristic);
+        }
+
+        // 4x4 boards take far longer than the timeouts below to solve
+        BoardGenerator generator = new BoardGenerator(4, 4, seed);
+        checkBatchTimeout(generator);
+        checkBatchCancel(generator);
+        checkBatchClose(generator);
+        checkParallelInterrupt(generator);
+        checkServiceAnswers(generator);
+        checkServiceInterrupt(generator);
+
+        System.out.println(failures == 0 ? "all checks passed" : failures + " checks failed");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Solves every board and compares the number of moves to the exact distance.
+     * @param name the name of the solver
+     * @param boards the boards
+     * @param table the exact distances of the boards
+     * @param solve solves a board, or returns null if the solver does not claim its solution is optimal
+     */
+    private static void checkOptimal(String name, List<RandomPermutation> boards, DistanceTable table,
+            Function<RandomPermutation, PuzzleSolver> solve) {
+        PackedBoard packed = table.getGeometry();
+        int wrong = 0;
+        for (RandomPermutation board : boards) {
+            PuzzleSolver solver = solve.apply(board);
+            int distance = table.distance(packed.encode(board));
+            if (solver == null || solver.moves() != distance || !leadsToGoal(board, solver, packed)) {
+                wrong++;
+            }
+        }
+        report(name + " is optimal", wrong == 0, wrong + " of " + boards.size() + " boards wrong");
+    }
+
+    /**
+     * Solves every board with Weighted A* and checks the bound on the number of moves.
+     * @param weight the weight of the estimates
+     * @param boards the boards
+     * @param table the exact distances of the boards
+     * @param heuristic the heuristic
+     */
+    private static void checkWeighted(double weight, List<RandomPermutation> boards, DistanceTable table,
+            Heuristic heuristic) {
+        PackedBoard packed = table.getGeometry();
+        SearchContext context = new SearchContext();
+        int wrong = 0;
+        long excess = 0;
+        for (RandomPermutation board : boards) {
+            context.begin(null, 0);
+            Solver solver = new Solver(board, heuristic, context, weight);
+            int distance = table.distance(packed.encode(board));
+            if (solver.moves() > weight * distance || !leadsToGoal(board, solver, packed)) {
+                wrong++;
+            }
+            excess += solver.moves() - distance;
+        }
+        report("weighted A* w=" + weight, wrong == 0,
+                wrong + " of " + boards.size() + " boards wrong, " + excess + " moves above optimal");
+    }
+
+    /**
+     * Replays a solution.
+     * @param board the initial board
+     * @param solver the solver holding the solution
+     * @param packed the encoding of the boards
+     * @return Returns true if the moves of the solution lead to the winning position
+     */
+    private static boolean leadsToGoal(RandomPermutation board, PuzzleSolver solver, PackedBoard packed) {
+        RandomPermutation last = board;
+        int moves = 0;
+        for (RandomPermutation position : solver.path()) {
+            last = position;
+            moves++;
+        }
+        return moves == solver.moves() && packed.encode(last) == packed.goal();
+    }
+
+    /**
+     * Checks that a job given a timeout completes with a TimeoutException.
+     * @param generator draws the boards
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private static void checkBatchTimeout(BoardGenerator generator) throws InterruptedException {
+        try (BatchSolver batch = new BatchSolver(1, HeuristicType.MANHATTAN)) {
+            CompletableFuture<PuzzleSolver> job = batch.submit(generator.next(), 20, TimeUnit.MILLISECONDS);
+            Throwable cause = null;
+            try {
+                job.get(STOP_WAIT, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                cause = e.getCause();
+            } catch (TimeoutException e) {
+                cause = e;
+            }
+            report("batch timeout", cause instanceof TimeoutException && job.isCompletedExceptionally(),
+                    "completed with " + cause);
+        }
+    }
+
+    /**
+     * Checks that cancelling a job stops its search, freeing the only thread
+     * of the pool for the next job.
+     * @param generator draws the boards
+     * @throws Exception if the next job fails
+     */
+    private static void checkBatchCancel(BoardGenerator generator) throws Exception {
+        try (BatchSolver batch = new BatchSolver(1, HeuristicType.MANHATTAN)) {
+            CompletableFuture<PuzzleSolver> job = batch.submit(generator.next());
+            CompletableFuture<PuzzleSolver> next = batch.submit(solved(4, 4));
+            Thread.sleep(50);
+            job.cancel(true);
+            boolean freed;
+            try {
+                freed = next.get(STOP_WAIT, TimeUnit.MILLISECONDS).moves() == 0;
+            } catch (TimeoutException e) {
+                freed = false;
+            }
+            report("batch cancel", job.isCancelled() && freed, "the cancelled search kept its thread");
+        }
+    }
+
+    /**
+     * Checks that closing a batch solver completes the futures of the jobs
+     * running and waiting, and cancels those submitted afterwards.
+     * @param generator draws the boards
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private static void checkBatchClose(BoardGenerator generator) throws InterruptedException {
+        BatchSolver batch = new BatchSolver(1, HeuristicType.MANHATTAN);
+        List<CompletableFuture<PuzzleSolver>> jobs = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            jobs.add(batch.submit(generator.next()));
+        }
+        Thread.sleep(50);
+        batch.close();
+        try {
+            CompletableFuture.allOf(jobs.toArray(new CompletableFuture<?>[0]))
+                    .exceptionally(e -> null)
+                    .get(STOP_WAIT, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            // counted below
+        }
+        long pending = jobs.stream().filter(job -> !job.isDone()).count();
+        boolean rejected = batch.submit(solved(4, 4)).isCancelled();
+        report("batch close", pending == 0 && rejected,
+                pending + " of " + jobs.size() + " futures pending, later submit cancelled: " + rejected);
+    }
+
+    /**
+     * Checks that interrupting the thread of a parallel search stops it and
+     * its workers.
+     * @param generator draws the boards
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private static void checkParallelInterrupt(BoardGenerator generator) throws InterruptedException {
+        RandomPermutation board = generator.next();
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        AtomicBoolean interrupted = new AtomicBoolean();
+        Thread search = new Thread(() -> {
+            try {
+                new ParallelSolver(board, new ManhattanHeuristic(4, 4), 2);
+            } catch (Throwable e) {
+                thrown.set(e);
+                interrupted.set(Thread.currentThread().isInterrupted());
+            }
+        }, "SolverCheck-parallel");
+        search.start();
+        Thread.sleep(100);
+        search.interrupt();
+        search.join(STOP_WAIT);
+        long deadline = System.currentTimeMillis() + STOP_WAIT;
+        boolean workers;
+        while ((workers = workersAlive()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        report("HDA* interrupt", !search.isAlive() && thrown.get() instanceof IllegalStateException
+                && interrupted.get() && !workers, "threw " + thrown.get() + ", workers left running: " + workers);
+    }
+
+    /** @return Returns true if a worker of a parallel search is still running */
+    private static boolean workersAlive() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .anyMatch(thread -> thread.getName().startsWith("ParallelSolver-"));
+    }
+
+    /**
+     * Checks the answers of the service to a board that cannot be solved in
+     * time, to invalid requests, to a request while every searcher is busy,
+     * and to a request once it is closed.
+     * @param generator draws the boards
+     * @throws Exception if the service cannot be opened
+     */
+    private static void checkServiceAnswers(BoardGenerator generator) throws Exception {
+        String easy = "3 3 1 2 3 4 5 6 0 7 8";
+        try (SolveService service = new SolveService(0, 20, 1)) {
+            String answer = service.answer(request(generator.next()));
+            report("service timeout", answer.equals("TIMEOUT"), answer);
+            answer = service.answer("3 3 1 2 3");
+            report("service invalid", answer.startsWith("ERROR "), answer);
+            answer = service.answer("3 3 2 1 3 4 5 6 7 8 0");
+            report("service unsolvable", answer.startsWith("ERROR "), answer);
+            answer = service.answer(easy);
+            report("service solved", answer.equals("OK 2 RR"), answer);
+        }
+
+        SolveService service = new SolveService(0, STOP_WAIT, 1);
+        RandomPermutation board = generator.next();
+        Thread first = new Thread(() -> service.answer(request(board)), "SolverCheck-request");
+        first.start();
+        Thread.sleep(50);
+        String answer = service.answer(request(generator.next()));
+        report("service busy", answer.equals("BUSY"), answer);
+        first.interrupt();
+        first.join(STOP_WAIT);
+        service.close();
+        // once the interrupted search has stopped, the searchers reject the request
+        long deadline = System.currentTimeMillis() + STOP_WAIT;
+        while ((answer = service.answer(easy)).equals("BUSY") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        report("service closed", answer.startsWith("ERROR "), answer);
+    }
+
+    /**
+     * Checks that interrupting a request stops its search, so the next
+     * request gets the searcher.
+     * @param generator draws the boards
+     * @throws Exception if the service cannot be opened
+     */
+    private static void checkServiceInterrupt(BoardGenerator generator) throws Exception {
+        try (SolveService service = new SolveService(0, 60000, 1)) {
+            AtomicReference<String> answer = new AtomicReference<>();
+            Thread request = new Thread(() -> answer.set(service.answer(request(generator.next()))),
+                    "SolverCheck-request");
+            request.start();
+            Thread.sleep(50);
+            request.interrupt();
+            request.join(STOP_WAIT);
+            long deadline = System.currentTimeMillis() + STOP_WAIT;
+            String next;
+            // the permit comes back once the search reaches its next checkpoint
+            while ((next = service.answer("3 3 1 2 3 4 5 0 7 8 6")).equals("BUSY")
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            report("service interrupt", "CANCELLED".equals(answer.get()) && next.startsWith("OK "),
+                    "interrupted request answered " + answer.get() + ", next one " + next);
+        }
+    }
+
+    /**
+     * Formats a board as a request of the service.
+     * @param board the board
+     * @return Returns the line to send
+     */
+    private static String request(RandomPermutation board) {
+        StringBuilder line = new StringBuilder().append(board.getRows()).append(' ').append(board.getColumns());
+        for (int row = 0; row < board.getRows(); row++) {
+            for (int column = 0; column < board.getColumns(); column++) {
+                line.append(' ').append(board.getType(row, column));
+            }
+        }
+        return line.toString();
+    }
+
+    /**
+     * Returns the winning position.
+     * @param rows the number of rows
+     * @param columns the number of columns
+     * @return Returns a new board in the winning position
+     */
+    private static RandomPermutation solved(int rows, int columns) {
+        PackedBoard packed = new PackedBoard(rows, columns);
+        return packed.decode(packed.goal());
+    }
+
+    /**
+     * Prints the result of a check.
+     * @param name the name of the check
+     * @param passed true if the check passed
+     * @param details what was found, printed if the check failed
+     */
+    private static void report(String name, boolean passed, String details) {
+        System.out.printf("%-26s %s%n", name, passed ? "ok" : "FAILED " + details);
+        if (!passed) {
+            failures++;
+        }
+    }
+}
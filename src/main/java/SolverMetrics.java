@@ -0,0 +1,153 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * What a solver did to find its solution: how many positions it generated,
+ * expanded and pruned as duplicates, how large its open list grew, how many
+ * times it evaluated the heuristic, and the wall and CPU time of each phase.
+ *
+ * The counts are always kept, in local variables of the search loop. The
+ * times are only measured when the search has a <b>MetricsSink</b>, see
+ * {@link SearchContext#setSink(MetricsSink)}, and are 0 otherwise.
+ */
+public class SolverMetrics {
+
+    /** The phases of a solve. */
+    public enum Phase {
+        /** Encoding the initial board and evaluating its heuristic. */
+        INITIALIZE,
+        /** Exploring positions until the solution is found. */
+        SEARCH,
+        /** Rebuilding the positions of the solution. */
+        SOLUTION
+    }
+
+    /** Measures the CPU time of the current thread. */
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /** The name of the solver. */
+    private final String solver;
+
+    /** The number of positions generated. */
+    long generated;
+
+    /** The number of positions expanded. */
+    long expanded;
+
+    /** The number of generated positions dropped because they were reached before with as few moves. */
+    long duplicates;
+
+    /** The number of evaluations of the heuristic. */
+    long evaluations;
+
+    /** The largest number of positions in the open list. */
+    long maxOpen;
+
+    /** The number of positions stored by the search when it ended. */
+    long stored;
+
+    /** The wall time of each phase, in nanoseconds. */
+    private final long[] wallTimes = new long[Phase.values().length];
+
+    /** The CPU time of each phase, in nanoseconds. */
+    private final long[] cpuTimes = new long[Phase.values().length];
+
+    /** The wall time at the start of the current phase. */
+    private long wallStart;
+
+    /** The CPU time at the start of the current phase. */
+    private long cpuStart;
+
+    /**
+     * Constructs empty metrics.
+     * @param solver the name of the solver
+     */
+    SolverMetrics(String solver) {
+        this.solver = solver;
+    }
+
+    /** Starts timing a phase. */
+    void start() {
+        wallStart = System.nanoTime();
+        cpuStart = THREADS.getCurrentThreadCpuTime();
+    }
+
+    /**
+     * Ends timing a phase.
+     * @param phase the phase started by the last call to {@link #start()}
+     */
+    void end(Phase phase) {
+        wallTimes[phase.ordinal()] += System.nanoTime() - wallStart;
+        cpuTimes[phase.ordinal()] += THREADS.getCurrentThreadCpuTime() - cpuStart;
+    }
+
+    /** @return Returns the name of the solver */
+    public String getSolver() {
+        return solver;
+    }
+
+    /** @return Returns the number of positions generated */
+    public long getGenerated() {
+        return generated;
+    }
+
+    /** @return Returns the number of positions expanded */
+    public long getExpanded() {
+        return expanded;
+    }
+
+    /** @return Returns the number of generated positions dropped as duplicates */
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    /** @return Returns the number of evaluations of the heuristic */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    /** @return Returns the largest number of positions in the open list, 0 if there is none */
+    public long getMaxOpen() {
+        return maxOpen;
+    }
+
+    /** @return Returns the number of positions stored by the search when it ended */
+    public long getStored() {
+        return stored;
+    }
+
+    /**
+     * Returns the wall time of a phase.
+     * @param phase the phase
+     * @return Returns the time in nanoseconds, 0 if not measured
+     */
+    public long getWallTime(Phase phase) {
+        return wallTimes[phase.ordinal()];
+    }
+
+    /**
+     * Returns the CPU time of a phase.
+     * @param phase the phase
+     * @return Returns the time in nanoseconds, 0 if not measured
+     */
+    public long getCpuTime(Phase phase) {
+        return cpuTimes[phase.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder string = new StringBuilder(solver)
+                .append(": generated ").append(generated)
+                .append(", expanded ").append(expanded)
+                .append(", duplicates ").append(duplicates)
+                .append(", evaluations ").append(evaluations)
+                .append(", max open ").append(maxOpen)
+                .append(", stored ").append(stored);
+        for (Phase phase : Phase.values()) {
+            string.append(", ").append(phase.name().toLowerCase())
+                    .append(' ').append(getWallTime(phase) / 1000).append(" us wall")
+                    .append(' ').append(getCpuTime(phase) / 1000).append(" us cpu");
+        }
+        return string.toString();
+    }
+}
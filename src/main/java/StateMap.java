@@ -0,0 +1,36 @@
+/**
+ * A map from packed board positions to an <b>int</b>, used by the search to
+ * remember the states it has already reached. A packed position is never 0
+ * since a board always holds at least one tile. <b>StateTable</b> keeps its
+ * entries in arrays on the heap and grows as needed; <b>OffHeapStateTable</b>
+ * keeps them outside the heap, in memory or in a mapped file, with a fixed
+ * capacity.
+ */
+public interface StateMap {
+
+    /** Returned by {@link #get(long)} when a position is not in the map. */
+    int MISSING = -1;
+
+    /**
+     * Returns the value stored for a position.
+     * @param key The packed position
+     * @return The value, or MISSING if the position is not in the map
+     */
+    int get(long key);
+
+    /**
+     * Stores a value for a position, replacing the previous one if any.
+     * @param key The packed position, never 0
+     * @param value The value to store
+     */
+    void put(long key, int value);
+
+    /** @return Returns the number of positions in the map */
+    int size();
+
+    /** @return Returns the number of slots of the map */
+    int capacity();
+
+    /** Removes every position from the map, keeping its capacity. */
+    void clear();
+}
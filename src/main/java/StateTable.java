@@ -0,0 +1,136 @@
+import java.util.Arrays;
+
+/**
+ * A hash table from packed board positions to an <b>int</b>, used by the
+ * search to remember the states it has already reached. Keys and values are
+ * kept in primitive arrays with open addressing and linear probing, so
+ * looking up a position neither boxes it nor allocates an entry. The arrays
+ * double when the table is half full.
+ *
+ * A packed position is never 0 since a board always holds at least one tile,
+ * so 0 marks a free slot.
+ */
+public class StateTable implements StateMap {
+
+    /** Marks a free slot in the key array. */
+    private static final long FREE = 0L;
+
+    /** Multiplier used to spread the bits of a key, see Knuth's multiplicative hashing. */
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    /** The default number of slots. */
+    private static final int DEFAULT_CAPACITY = 1 << 12;
+
+    /** The positions, FREE for an empty slot. */
+    private long[] keys;
+
+    /** The value stored for the position found at the same index in keys. */
+    private int[] values;
+
+    /** The number of positions in the table. */
+    private int size;
+
+    /** Number of bits to shift a hash right by to get a slot index. */
+    private int shift;
+
+    /** Constructs an empty table. */
+    public StateTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty table sized for the given number of positions.
+     * @param expected The number of positions expected to be stored
+     */
+    public StateTable(int expected) {
+        allocate(Math.max(2, Integer.highestOneBit(Math.max(expected, 1) * 2 - 1) << 1));
+    }
+
+    @Override
+    public int get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) {
+                return values[slot];
+            }
+            if (current == FREE) {
+                return MISSING;
+            }
+        }
+    }
+
+    @Override
+    public void put(long key, int value) {
+        int mask = keys.length - 1;
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) {
+                values[slot] = value;
+                return;
+            }
+            if (current == FREE) {
+                keys[slot] = key;
+                values[slot] = value;
+                // keep the load factor at one half at most
+                if (++size > keys.length >>> 1) {
+                    grow();
+                }
+                return;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int capacity() {
+        return keys.length;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        size = 0;
+    }
+
+    /**
+     * Computes the home slot of a key.
+     * @param key The packed position
+     * @return The index of the first slot to probe
+     */
+    private int slot(long key) {
+        return (int) ((key * GOLDEN) >>> shift);
+    }
+
+    /**
+     * Allocates empty arrays with the given number of slots.
+     * @param capacity A power of two
+     */
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    /** Doubles the number of slots and re-inserts every position. */
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(keys.length << 1);
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = slot(oldKeys[i]);
+                while (keys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
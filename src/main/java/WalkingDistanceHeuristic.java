@@ -0,0 +1,327 @@
+import java.util.Arrays;
+
+/**
+ * The walking distance heuristic. Looking only at rows, a position is reduced
+ * to how many tiles of each goal row are in each row, and to the row of the
+ * empty cell; the number of vertical moves needed to solve this reduced
+ * puzzle is a lower bound of the vertical moves of the real one. The same
+ * goes for columns and horizontal moves, and the estimate is the sum of both.
+ *
+ * The reduced positions of each axis are numbered, and their distances
+ * computed, once by a breadth-first search when the heuristic is
+ * constructed, which also records the reduced position every move leads to.
+ * The state of a position is the pair of the numbers of its two reduced
+ * positions. A vertical move does not change the reduced position of the
+ * columns and vice versa, so from the state of the previous position an
+ * update is two table lookups, without looking at the tiles. Without it,
+ * {@link #update(int, int[], int, int)} encodes the reduced position of the
+ * axis the tile moved along from every tile.
+ */
+public class WalkingDistanceHeuristic implements Heuristic {
+
+    /** The number of columns of the board. */
+    private final int columns;
+
+    /** The reduced positions of the rows. */
+    private final Axis vertical;
+
+    /** The reduced positions of the columns. */
+    private final Axis horizontal;
+
+    /** The number of reduced positions of the columns, by which the number of the rows is multiplied in a state. */
+    private final int radix;
+
+    /**
+     * Constructs the heuristic for boards of the given dimensions.
+     * @param rows The number of rows of the board
+     * @param columns The number of columns of the board
+     */
+    public WalkingDistanceHeuristic(int rows, int columns) {
+        this.columns = columns;
+        vertical = new Axis(rows, columns);
+        horizontal = new Axis(columns, rows);
+        radix = horizontal.size();
+        if ((long) vertical.size() * radix > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The board is too large for the walking distance");
+        }
+    }
+
+    @Override
+    public int estimate(int[] tiles) {
+        return distance(state(tiles));
+    }
+
+    @Override
+    public int state(int[] tiles) {
+        return vertical.id(rowCode(tiles)) * radix + horizontal.id(columnCode(tiles));
+    }
+
+    @Override
+    public int advance(int state, int[] tiles, int from, int to) {
+        int tile = tiles[to];
+        int row = state / radix;
+        int column = state % radix;
+        if (from / columns == to / columns) {
+            column = horizontal.next(column, from % columns, to % columns, (tile - 1) % columns);
+        } else {
+            row = vertical.next(row, from / columns, to / columns, (tile - 1) / columns);
+        }
+        return row * radix + column;
+    }
+
+    @Override
+    public int update(int estimate, int state, int[] tiles, int from, int to) {
+        return distance(advance(state, tiles, from, to));
+    }
+
+    @Override
+    public int update(int estimate, int[] tiles, int from, int to) {
+        // undoing the move in the code of the axis gives the distance before the move
+        int tile = tiles[to];
+        if (from / columns == to / columns) {
+            long after = columnCode(tiles);
+            long before = horizontal.move(after, to % columns, from % columns, (tile - 1) % columns);
+            return estimate - horizontal.distance(horizontal.id(before)) + horizontal.distance(horizontal.id(after));
+        } else {
+            long after = rowCode(tiles);
+            long before = vertical.move(after, to / columns, from / columns, (tile - 1) / columns);
+            return estimate - vertical.distance(vertical.id(before)) + vertical.distance(vertical.id(after));
+        }
+    }
+
+    /**
+     * Returns the estimate of a state.
+     * @param state the state of a position
+     * @return the sum of the distances of its reduced positions
+     */
+    private int distance(int state) {
+        return vertical.distance(state / radix) + horizontal.distance(state % radix);
+    }
+
+    /**
+     * Encodes the reduced position of the rows.
+     * @param tiles the tiles in row-major order
+     * @return the code of the reduced position
+     */
+    private long rowCode(int[] tiles) {
+        long code = 0;
+        for (int index = 0; index < tiles.length; index++) {
+            int tile = tiles[index];
+            if (tile == 0) {
+                code = vertical.withEmpty(code, index / columns);
+            } else {
+                code += vertical.unit(index / columns, (tile - 1) / columns);
+            }
+        }
+        return code;
+    }
+
+    /**
+     * Encodes the reduced position of the columns.
+     * @param tiles the tiles in row-major order
+     * @return the code of the reduced position
+     */
+    private long columnCode(int[] tiles) {
+        long code = 0;
+        for (int index = 0; index < tiles.length; index++) {
+            int tile = tiles[index];
+            if (tile == 0) {
+                code = horizontal.withEmpty(code, index % columns);
+            } else {
+                code += horizontal.unit(index % columns, (tile - 1) % columns);
+            }
+        }
+        return code;
+    }
+
+    /**
+     * The reduced puzzle along one axis: a board of <b>lines</b> lines of
+     * <b>length</b> cells, where a position is the number of tiles of each
+     * goal line found in each line, and the line of the empty cell. A
+     * position is encoded in a <b>long</b>, one field of <b>bits</b> bits per
+     * count, followed by the line of the empty cell, and numbered in the
+     * order the breadth-first search reaches it.
+     */
+    private static class Axis {
+
+        /** The number of lines. */
+        private final int lines;
+
+        /** The number of bits of a count. */
+        private final int bits;
+
+        /** The position of the field holding the line of the empty cell. */
+        private final int emptyShift;
+
+        /** The number of every reachable reduced position, by code. */
+        private final StateTable ids = new StateTable();
+
+        /** The distance of each reduced position, by number. */
+        private final int[] distances;
+
+        /**
+         * The number of the reduced position each move leads to, or -1, at
+         * {@link #transition(int, int, int, int)}.
+         */
+        private final int[] transitions;
+
+        /**
+         * Constructs the reduced puzzle and computes the distance of its positions.
+         * @param lines the number of lines
+         * @param length the number of cells of a line
+         */
+        Axis(int lines, int length) {
+            this.lines = lines;
+            bits = 32 - Integer.numberOfLeadingZeros(length);
+            emptyShift = lines * lines * bits;
+            if (emptyShift + 32 - Integer.numberOfLeadingZeros(lines) > 63) {
+                throw new IllegalArgumentException("The board is too large for the walking distance");
+            }
+
+            long goal = 0;
+            for (int line = 0; line < lines; line++) {
+                goal += unit(line, line) * (line == lines - 1 ? length - 1 : length);
+            }
+            goal = withEmpty(goal, lines - 1);
+
+            // breadth-first search from the goal, the reduced moves are reversible
+            long[] queue = new long[1024];
+            int[] depths = new int[queue.length];
+            int[] moves = new int[queue.length * 2 * lines];
+            int head = 0, tail = 0;
+            queue[tail++] = goal;
+            ids.put(goal, 0);
+            while (head < tail) {
+                long code = queue[head];
+                int empty = empty(code);
+                for (int other = empty - 1; other <= empty + 1; other += 2) {
+                    for (int goalLine = 0; goalLine < lines; goalLine++) {
+                        int move = transition(head, other, empty, goalLine);
+                        if (other < 0 || other >= lines || count(code, other, goalLine) == 0) {
+                            moves[move] = -1;
+                            continue;
+                        }
+                        long next = move(code, other, empty, goalLine);
+                        int id = ids.get(next);
+                        if (id == StateTable.MISSING) {
+                            if (tail == queue.length) {
+                                queue = Arrays.copyOf(queue, queue.length * 2);
+                                depths = Arrays.copyOf(depths, queue.length);
+                                moves = Arrays.copyOf(moves, queue.length * 2 * lines);
+                            }
+                            id = tail++;
+                            ids.put(next, id);
+                            queue[id] = next;
+                            depths[id] = depths[head] + 1;
+                        }
+                        moves[move] = id;
+                    }
+                }
+                head++;
+            }
+            distances = Arrays.copyOf(depths, tail);
+            transitions = Arrays.copyOf(moves, tail * 2 * lines);
+        }
+
+        /** @return the number of reachable reduced positions */
+        int size() {
+            return distances.length;
+        }
+
+        /**
+         * Returns the number of a reduced position.
+         * @param code the reduced position
+         * @return its number, below {@link #size()}
+         */
+        int id(long code) {
+            return ids.get(code);
+        }
+
+        /**
+         * Returns the index in the transitions of a move.
+         * @param id the number of the reduced position before the move
+         * @param line the line the tile leaves
+         * @param empty the line of the empty cell, where the tile goes
+         * @param goalLine the goal line of the tile
+         * @return the index of the move
+         */
+        private int transition(int id, int line, int empty, int goalLine) {
+            return ((id * 2 + (line > empty ? 1 : 0)) * lines) + goalLine;
+        }
+
+        /**
+         * Looks up the reduced position reached by a move, see
+         * {@link #move(long, int, int, int)}.
+         * @param id the number of the reduced position
+         * @param line the line the tile leaves
+         * @param empty the line of the empty cell, where the tile goes
+         * @param goalLine the goal line of the tile
+         * @return the number of the new reduced position
+         */
+        int next(int id, int line, int empty, int goalLine) {
+            return transitions[transition(id, line, empty, goalLine)];
+        }
+
+        /**
+         * Returns the increment of the code for one tile.
+         * @param line the line the tile is in
+         * @param goalLine the goal line of the tile
+         * @return the value to add to the code
+         */
+        long unit(int line, int goalLine) {
+            return 1L << ((line * lines + goalLine) * bits);
+        }
+
+        /**
+         * Returns the number of tiles of a goal line found in a line.
+         * @param code the reduced position
+         * @param line the line
+         * @param goalLine the goal line
+         * @return the number of tiles
+         */
+        int count(long code, int line, int goalLine) {
+            return (int) (code >>> ((line * lines + goalLine) * bits)) & ((1 << bits) - 1);
+        }
+
+        /**
+         * Returns the line of the empty cell.
+         * @param code the reduced position
+         * @return the line of the empty cell
+         */
+        int empty(long code) {
+            return (int) (code >>> emptyShift);
+        }
+
+        /**
+         * Sets the line of the empty cell.
+         * @param code the reduced position
+         * @param line the line of the empty cell
+         * @return the new reduced position
+         */
+        long withEmpty(long code, int line) {
+            return (code & ((1L << emptyShift) - 1)) | ((long) line << emptyShift);
+        }
+
+        /**
+         * Moves a tile of the given goal line from a line into the neighbouring
+         * line that holds the empty cell, the empty cell taking its place.
+         * @param code the reduced position
+         * @param line the line the tile leaves
+         * @param empty the line of the empty cell, where the tile goes
+         * @param goalLine the goal line of the tile
+         * @return the new reduced position
+         */
+        long move(long code, int line, int empty, int goalLine) {
+            return withEmpty(code - unit(line, goalLine) + unit(empty, goalLine), line);
+        }
+
+        /**
+         * Returns the distance of a reduced position.
+         * @param id the number of the reduced position
+         * @return the number of moves along this axis needed to solve it
+         */
+        int distance(int id) {
+            return distances[id];
+        }
+    }
+}